@@ -0,0 +1,60 @@
+package com.example.whynotpc.controllers;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load benchmark of the catalog and cart endpoints of a running instance, used to compare platform and virtual
+ * request threads. Start the application once with {@code spring.threads.virtual.enabled=false} and once with
+ * {@code true} on JDK 21, then run e.g.
+ * {@code -t 256 -p baseUrl=http://localhost:8080 -p accessToken=<jwt> EndpointLoadBenchmark}
+ * against each and compare throughput and the sample time percentiles.
+ * The cart endpoint requires the access token of an existing user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+@Threads(256)
+public class EndpointLoadBenchmark {
+    @Param("http://localhost:8080")
+    private String baseUrl;
+
+    @Param("")
+    private String accessToken;
+
+    @Param({"/api/products", "/api/products?category=storage&page=0&sort=price&order=asc", "/api/cart"})
+    private String path;
+
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setup() {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        var builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (!accessToken.isEmpty())
+            builder.header("Cookie", "access_token=" + accessToken);
+        request = builder.build();
+    }
+
+    @Benchmark
+    public int get() throws IOException, InterruptedException {
+        var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 500)
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.whynotpc.controllers;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load benchmark of the login endpoint of a running instance, measuring logins per second.
+ * Register the user once, start the build to measure, then run e.g.
+ * {@code -t 32 -p baseUrl=http://localhost:8080 -p username=bench -p password=<password> LoginLoadBenchmark}
+ * and compare the throughput of builds before and after a change against the same database.
+ * Every login stores a new token pair, so the token tables grow during the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+@Threads(32)
+public class LoginLoadBenchmark {
+    @Param("http://localhost:8080")
+    private String baseUrl;
+
+    @Param("bench")
+    private String username;
+
+    @Param("")
+    private String password;
+
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setup() {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        var body = "{\"username\":\"%s\",\"password\":\"%s\"}".formatted(username, password);
+        request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    @Benchmark
+    public int login() throws IOException, InterruptedException {
+        var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.users.Role;
+import com.example.whynotpc.models.users.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing signing and verification throughput of JwtService against the previous approach,
+ * which decoded the key and built a parser on every call and parsed a token three times per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String SECRET_KEY = "2Yv8cJ0aN5qR3tW6zB9eH2kM5pS8vY1bE4hK7nQ0tW3zC6fJ9mP2sV5yB8eH1kN4";
+    private static final long EXPIRATION = 86_400_000;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(SECRET_KEY, EXPIRATION, EXPIRATION * 7);
+        user = User.builder().id(1L).username("admin").role(Role.ADMIN).build();
+        token = jwtService.generateToken(user);
+    }
+
+    /**
+     * Decodes the signing key the way JwtService did before caching it.
+     *
+     * @return signing key
+     */
+    private static SecretKey decodeSigningKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    }
+
+    /**
+     * Parses the token the way JwtService did before caching the parser.
+     *
+     * @param token The JWT to parse
+     * @return claims of the token
+     */
+    private static Claims parseWithNewParser(String token) {
+        return Jwts.parser().verifyWith(decodeSigningKey()).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public String signPrevious() {
+        return Jwts.builder()
+                .claims(new HashMap<>())
+                .subject(user.getUsername())
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + EXPIRATION))
+                .signWith(decodeSigningKey(), Jwts.SIG.HS384)
+                .compact();
+    }
+
+    @Benchmark
+    public String signCurrent() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean verifyPrevious() {
+        String username = parseWithNewParser(token).getSubject();
+        return username.equals(parseWithNewParser(token).getSubject())
+                && !parseWithNewParser(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean verifyCurrent() {
+        var claims = jwtService.validate(token);
+        return claims.subject().equals(user.getUsername()) && claims.expiration().after(new Date());
+    }
+}
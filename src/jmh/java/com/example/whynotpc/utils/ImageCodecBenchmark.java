@@ -0,0 +1,141 @@
+package com.example.whynotpc.utils;
+
+import com.example.whynotpc.models.img.ImageCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * Benchmark comparing the CPU cost per upload and per read of the content-aware image codec against the previous
+ * approach, which deflated every upload with the best compression level and inflated it on every read.
+ * The WEBP sample is incompressible like real WEBP data, SVG and BMP samples are highly compressible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageCodecBenchmark {
+    private static final int SIZE = 64 * 1024;
+
+    @Param({"webp", "svg", "bmp"})
+    private String format;
+
+    @Param("6")
+    private int level;
+
+    private String contentType;
+    private byte[] image;
+    private byte[] previousStored;
+    private byte[] currentStored;
+    private ImageCodec codec;
+
+    @Setup
+    public void setup() throws IOException {
+        image = switch (format) {
+            case "webp" -> webp();
+            case "svg" -> svg();
+            case "bmp" -> bmp();
+            default -> throw new IllegalArgumentException(format);
+        };
+        contentType = "image/" + (format.equals("svg") ? "svg+xml" : format);
+        previousStored = ImageUtils.compressImage(image);
+        var out = new ByteArrayOutputStream();
+        codec = encodeCurrent(out);
+        currentStored = out.toByteArray();
+    }
+
+    /**
+     * Builds a WEBP-like image: a RIFF header followed by random bytes.
+     *
+     * @return image data
+     */
+    private static byte[] webp() {
+        var data = new byte[SIZE];
+        new Random(42).nextBytes(data);
+        System.arraycopy("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII), 0, data, 0, 16);
+        return data;
+    }
+
+    /**
+     * Builds an SVG image of repeated shapes.
+     *
+     * @return image data
+     */
+    private static byte[] svg() {
+        var svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 1000 1000\">");
+        var random = new Random(42);
+        while (svg.length() < SIZE - 10)
+            svg.append("<rect x=\"").append(random.nextInt(1000)).append("\" y=\"").append(random.nextInt(1000))
+                    .append("\" width=\"10\" height=\"10\" fill=\"#3a7bd5\"/>");
+        svg.append("</svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a BMP image holding a gradient.
+     *
+     * @return image data
+     */
+    private static byte[] bmp() {
+        var data = new byte[SIZE];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) ((i / 3) % 256);
+        data[0] = 'B';
+        data[1] = 'M';
+        Arrays.fill(data, 2, 54, (byte) 0);
+        return data;
+    }
+
+    /**
+     * Encodes the image the way ImageService stores it.
+     *
+     * @param out The stream receiving the stored content
+     * @return codec the image was stored with
+     * @throws IOException If an I/O error occurs
+     */
+    private ImageCodec encodeCurrent(OutputStream out) throws IOException {
+        var codec = ImageUtils.detectCodec(Arrays.copyOf(image, ImageUtils.HEADER_LENGTH), contentType);
+        var deflater = new Deflater(level);
+        try (InputStream in = new ByteArrayInputStream(image)) {
+            (codec == ImageCodec.DEFLATE ? new DeflaterInputStream(in, deflater) : in).transferTo(out);
+        } finally {
+            deflater.end();
+        }
+        return codec;
+    }
+
+    @Benchmark
+    public byte[] uploadPrevious() throws IOException {
+        return ImageUtils.compressImage(image);
+    }
+
+    @Benchmark
+    public ImageCodec uploadCurrent() throws IOException {
+        return encodeCurrent(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] readPrevious() throws DataFormatException, IOException {
+        return ImageUtils.decompressImage(previousStored);
+    }
+
+    @Benchmark
+    public long readCurrent() throws IOException {
+        try (var in = ImageUtils.decode(new ByteArrayInputStream(currentStored), codec)) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.whynotpc.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of building the product search index for a catalog of 100k titles and of querying it
+ * with exact words, part numbers and short prefixes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvertedIndexBenchmark {
+    private static final String[] BRANDS = {"Kingston", "Samsung", "Crucial", "WD", "Seagate", "Corsair",
+            "G.Skill", "ASUS", "MSI", "Gigabyte", "Intel", "AMD", "NVIDIA", "Sapphire", "Noctua", "be quiet!"};
+    private static final String[] KINDS = {"SSD", "HDD", "DDR4", "DDR5", "RTX", "Radeon", "Ryzen", "Core",
+            "NVMe", "SATA", "Cooler", "PSU", "Motherboard", "Case", "Fan"};
+    private static final String[] CAPACITIES = {"120GB", "240GB", "480GB", "500GB", "960GB", "1TB", "2TB",
+            "4TB", "8GB", "16GB", "32GB", "64GB", "650W", "750W", "850W"};
+
+    @Param("100000")
+    public int products;
+
+    @Param({"samsung", "sa400s37/480g", "kingston ssd 480", "r"})
+    public String query;
+
+    private List<String> titles;
+    private InvertedIndex index;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        titles = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            var brand = BRANDS[random.nextInt(BRANDS.length)];
+            var kind = KINDS[random.nextInt(KINDS.length)];
+            var capacity = CAPACITIES[random.nextInt(CAPACITIES.length)];
+            var partNumber = "%s%03dS%02d/%s".formatted(brand.substring(0, 2).toUpperCase(), random.nextInt(1000),
+                    random.nextInt(100), capacity.substring(0, capacity.length() - 1));
+            titles.add("%s %s %s %s #%d".formatted(brand, kind, capacity, partNumber, i));
+        }
+        titles.set(0, "Kingston A400 SSD 480GB SA400S37/480G");
+        index = build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public InvertedIndex build() {
+        var built = new InvertedIndex();
+        for (int i = 0; i < titles.size(); i++)
+            built.put(i, titles.get(i));
+        return built;
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return index.search(query, 20);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.whynotpc.utils;
+
+import com.example.whynotpc.utils.SuggestionTrie.Suggestion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of building the typeahead trie for a catalog of 100k titles, of looking up prefixes of growing
+ * length, and of the popularity update a checkout makes. Run with {@code -prof gc} to check that lookups
+ * do not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestionTrieBenchmark {
+    private static final String[] BRANDS = {"Kingston", "Samsung", "Crucial", "WD", "Seagate", "Corsair",
+            "G.Skill", "ASUS", "MSI", "Gigabyte", "Intel", "AMD", "NVIDIA", "Sapphire", "Noctua", "be quiet!"};
+    private static final String[] KINDS = {"SSD", "HDD", "DDR4", "DDR5", "RTX", "Radeon", "Ryzen", "Core",
+            "NVMe", "SATA", "Cooler", "PSU", "Motherboard", "Case", "Fan"};
+    private static final String[] CAPACITIES = {"120GB", "240GB", "480GB", "500GB", "960GB", "1TB", "2TB",
+            "4TB", "8GB", "16GB", "32GB", "64GB", "650W", "750W", "850W"};
+
+    @Param("100000")
+    public int products;
+
+    @Param({"s", "Sams", "samsung ssd 4", "kingston a400 ssd 480gb"})
+    public String prefix;
+
+    private List<Suggestion> suggestions;
+    private SuggestionTrie trie;
+    private int next;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42);
+        suggestions = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            var title = "%s %s %s #%d".formatted(BRANDS[random.nextInt(BRANDS.length)],
+                    KINDS[random.nextInt(KINDS.length)], CAPACITIES[random.nextInt(CAPACITIES.length)], i);
+            suggestions.add(new Suggestion("product", i, title, random.nextInt(1000)));
+        }
+        suggestions.set(0, new Suggestion("product", 0, "Kingston A400 SSD 480GB", 5));
+        trie = build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SuggestionTrie build() {
+        return SuggestionTrie.of(10, suggestions);
+    }
+
+    @Benchmark
+    public List<Suggestion> suggest() {
+        return trie.suggest(prefix);
+    }
+
+    @Benchmark
+    public void addWeight() {
+        trie.addWeight("product", next++ % products, 1);
+    }
+}
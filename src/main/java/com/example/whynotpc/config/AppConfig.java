@@ -1,18 +1,23 @@
 package com.example.whynotpc.config;
 
+import com.example.whynotpc.models.users.User;
 import com.example.whynotpc.persistence.users.UserRepo;
+import com.example.whynotpc.utils.OffloadedPasswordEncoder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 /**
  * Configuration class for setting up application beans related to security.
  */
@@ -20,15 +25,42 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @RequiredArgsConstructor
 public class AppConfig {
     private final UserRepo userRepo;
+    @Value("${application.security.password.bcrypt-strength:-1}")
+    private int bcryptStrength;
+    @Value("${application.security.password.target-latency:250ms}")
+    private Duration targetLatency;
+    @Value("${application.security.password.hashing-threads:0}")
+    private int hashingThreads;
+    @Value("${application.security.password.queue-capacity:64}")
+    private int hashingQueueCapacity;
 
     /**
-     * Provides a bean for encoding passwords using BCryptPasswordEncoder.
+     * Provides a bean for encoding passwords using BCrypt on a dedicated bounded thread pool.
+     * Unless configured, the cost factor is calibrated to the target latency on this host,
+     * and half of the available processors are used for hashing.
      *
-     * @return BCryptPasswordEncoder bean.
+     * @return OffloadedPasswordEncoder bean.
      */
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength > 0 ? bcryptStrength : OffloadedPasswordEncoder.calibrateStrength(targetLatency);
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new OffloadedPasswordEncoder(strength, threads, hashingQueueCapacity);
+    }
+
+    /**
+     * Provides a bean for storing rehashed passwords, used when a stored hash has a different cost factor
+     * than the current one.
+     *
+     * @return UserDetailsPasswordService bean.
+     */
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (userDetails, newPassword) -> {
+            var user = (User) userDetails;
+            user.setPassword(newPassword);
+            return userRepo.save(user);
+        };
     }
 
     /**
@@ -65,6 +97,7 @@ public class AppConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authProvider;
     }
 }
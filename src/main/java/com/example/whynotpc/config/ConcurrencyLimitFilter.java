@@ -0,0 +1,68 @@
+package com.example.whynotpc.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+/**
+ * Filter limiting the number of requests processed at the same time.
+ * Requests that cannot get a permit within the maximum wait are rejected with TOO_MANY_REQUESTS (429),
+ * so that an unbounded number of request threads never queues up for database connections.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+
+    /**
+     * Constructs a new ConcurrencyLimitFilter.
+     *
+     * @param maxConcurrentRequests The maximum number of requests processed at the same time.
+     * @param maxWait               The maximum time a request waits for a permit.
+     */
+    public ConcurrencyLimitFilter(int maxConcurrentRequests, Duration maxWait) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Processes the request if a permit is available within the maximum wait, rejects it otherwise.
+     *
+     * @param request     The HTTP request.
+     * @param response    The HTTP response.
+     * @param filterChain The filter chain.
+     * @throws ServletException If an error occurs during the servlet processing.
+     * @throws IOException      If an I/O error occurs.
+     */
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setStatus(TOO_MANY_REQUESTS.value());
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
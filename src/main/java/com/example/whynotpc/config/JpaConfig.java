@@ -0,0 +1,29 @@
+package com.example.whynotpc.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for JPA and Hibernate settings.
+ */
+@Configuration
+public class JpaConfig {
+    /**
+     * Provides a customizer enabling JDBC batching, so that inserts and updates flushed together
+     * are sent in as few round trips as possible. Explicitly configured values take precedence.
+     *
+     * @param batchSize The maximum number of statements per JDBC batch.
+     * @return HibernatePropertiesCustomizer bean.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(@Value("${application.jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+}
@@ -1,16 +1,22 @@
 package com.example.whynotpc.config;
 
+import com.example.whynotpc.models.jwt.TokenClaims;
+import com.example.whynotpc.models.users.Role;
+import com.example.whynotpc.models.users.User;
 import com.example.whynotpc.persistence.jwt.AccessTokenRepo;
 import com.example.whynotpc.services.JwtService;
-import io.jsonwebtoken.ExpiredJwtException;
+import com.example.whynotpc.services.TokenRevocationService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -20,10 +26,17 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 import static com.example.whynotpc.utils.CookieUtils.extractTokenFromCookie;
+import static com.example.whynotpc.utils.HashUtils.sha256Hex;
 
 /**
  * Component class for JWT authentication filter.
  * This filter intercepts requests and performs JWT authentication if necessary.
+ * By default, every token is checked against the stored access tokens and users.
+ * <p>
+ * With {@code application.security.jwt.stateless-validation} enabled, access tokens carrying the user id
+ * and role are instead trusted as signed, unless revoked, so valid requests do not touch the database.
+ * Revocations are only known to the instance they were made on, so this must only be enabled when a single
+ * instance serves the tokens.
  */
 @Component
 @RequiredArgsConstructor
@@ -31,6 +44,57 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final AccessTokenRepo accessTokenRepo;
+    private final TokenRevocationService tokenRevocationService;
+    @Value("${application.security.jwt.stateless-validation:false}")
+    private boolean statelessValidation;
+
+    /**
+     * Checks if the token claims are sufficient to authenticate the user without a database lookup,
+     * either because the token is known to be valid or because its revocation would be known to this instance.
+     * Both only hold when revocations made on other instances can be ignored, so tokens are always checked
+     * against the database unless stateless validation is enabled.
+     *
+     * @param claims The claims of a non-revoked token
+     * @return True if the token can be validated statelessly, false otherwise
+     */
+    private boolean isSelfContained(TokenClaims claims) {
+        if (!statelessValidation || !claims.isSelfContainedAccessToken())
+            return false;
+        return tokenRevocationService.isKnownValid(claims)
+                || tokenRevocationService.isIssuedAfterStartup(claims.issuedAt());
+    }
+
+    /**
+     * Builds the principal from the token claims.
+     *
+     * @param claims The claims of the token
+     * @return user holding the id, username and role from the token
+     */
+    private User toPrincipal(TokenClaims claims) {
+        return User.builder()
+                .id(claims.userId())
+                .username(claims.subject())
+                .role(Role.valueOf(claims.role()))
+                .build();
+    }
+
+    /**
+     * Sets the authentication for the given user details in the security context.
+     *
+     * @param userDetails The authenticated user details
+     * @param request     The HTTP request.
+     */
+    private void authenticate(UserDetails userDetails, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+        authenticationToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
 
     /**
      * Filters the HTTP request to perform JWT authentication.
@@ -51,36 +115,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             filterChain.doFilter(request, response);
             return;
         }
-        final String username;
+        final TokenClaims claims;
         final String jwt = extractTokenFromCookie(request, "access_token");
         try {
-            username = jwtService.getUsername(jwt);
-        } catch (ExpiredJwtException | IllegalArgumentException e) {
+            claims = jwtService.validate(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
             filterChain.doFilter(request, response);
             return;
         }
+        final String username = claims.subject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                var userDetails = this.userDetailsService.loadUserByUsername(username);
-                var isTokenValid = accessTokenRepo.findByToken(jwt)
-                        .map(token -> jwtService.isTokenValid(token.getToken(), userDetails))
-                        .orElse(false);
-                if (isTokenValid) {
-                    UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authenticationToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                }
-            } catch (UsernameNotFoundException e) {
+            if (claims.isSelfContainedAccessToken() && tokenRevocationService.isRevoked(claims.id())) {
                 filterChain.doFilter(request, response);
                 return;
             }
+            if (isSelfContained(claims)) {
+                authenticate(toPrincipal(claims), request);
+            } else {
+                try {
+                    var userDetails = this.userDetailsService.loadUserByUsername(username);
+                    var isTokenValid = accessTokenRepo.existsByTokenHash(sha256Hex(jwt))
+                            && claims.subject().equals(userDetails.getUsername());
+                    if (isTokenValid) {
+                        tokenRevocationService.remember(claims);
+                        authenticate(userDetails, request);
+                    }
+                } catch (UsernameNotFoundException e) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+            }
         }
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,48 @@
+package com.example.whynotpc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for the virtual-thread execution mode, active when {@code spring.threads.virtual.enabled}
+ * is set and the application runs on JDK 21 or newer. Spring Boot then handles Tomcat requests and
+ * {@code @Async} tasks on virtual threads; this class guards the connection pool against the resulting
+ * unbounded concurrency.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    /**
+     * Provides a filter limiting concurrent requests, registered ahead of the security filters
+     * since authentication may already need a database connection.
+     * Unless configured, the limit is derived from the connection pool size.
+     *
+     * @param dataSource            The connection pool.
+     * @param maxConcurrentRequests The maximum number of requests processed at the same time, 0 to derive it.
+     * @param requestsPerConnection The number of concurrent requests allowed per pooled connection.
+     * @param maxWait               The maximum time a request waits before being rejected.
+     * @return FilterRegistrationBean of the ConcurrencyLimitFilter.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            HikariDataSource dataSource,
+            @Value("${application.threads.virtual.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${application.threads.virtual.requests-per-connection:4}") int requestsPerConnection,
+            @Value("${application.threads.virtual.max-wait:1s}") Duration maxWait
+    ) {
+        int limit = maxConcurrentRequests > 0
+                ? maxConcurrentRequests
+                : dataSource.getMaximumPoolSize() * requestsPerConnection;
+        var registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limit, maxWait));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
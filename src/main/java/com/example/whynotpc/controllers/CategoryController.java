@@ -9,7 +9,9 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
+import static com.example.whynotpc.utils.ServiceCallHandler.getEncodedResponse;
 import static com.example.whynotpc.utils.ServiceCallHandler.getResponse;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
 
 /**
  * Controller class for handling category-related endpoints.
@@ -49,11 +51,14 @@ public class CategoryController {
     /**
      * Retrieves all categories.
      *
-     * @return ResponseEntity with a BasicResponse.
+     * @param acceptEncoding The content codings accepted by the client (optional).
+     * @return ResponseEntity with the encoded response, or 304 if it matches If-None-Match.
      */
     @GetMapping
-    public ResponseEntity<? extends BasicResponse> readAll() {
-        return getResponse(categoryService::readAll);
+    public ResponseEntity<byte[]> readAll(
+            @RequestHeader(name = ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return getEncodedResponse(categoryService::readAll, acceptEncoding);
     }
 
     /**
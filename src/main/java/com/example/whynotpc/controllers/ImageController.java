@@ -1,15 +1,34 @@
 package com.example.whynotpc.controllers;
 
+import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.models.img.ImageVariant;
 import com.example.whynotpc.models.response.BasicResponse;
+import com.example.whynotpc.services.ImageIngestService;
 import com.example.whynotpc.services.ImageService;
+import com.example.whynotpc.services.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpRange;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
 import static com.example.whynotpc.utils.ServiceCallHandler.getResponse;
-import static org.springframework.http.HttpStatus.OK;
-import static org.springframework.http.MediaType.IMAGE_PNG;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.http.HttpStatus.PARTIAL_CONTENT;
+import static org.springframework.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
+import static org.springframework.http.MediaType.APPLICATION_OCTET_STREAM_VALUE;
 
 /**
  * Controller class for handling image-related endpoints.
@@ -18,7 +37,13 @@ import static org.springframework.http.MediaType.IMAGE_PNG;
 @RequiredArgsConstructor
 @RequestMapping("/api/images")
 public class ImageController {
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+    private static final String CONTENT_SECURITY_POLICY = "default-src 'none'; style-src 'unsafe-inline'; sandbox";
+
     private final ImageService imageService;
+    private final ImageVariantService imageVariantService;
+    private final ImageIngestService imageIngestService;
 
     /**
      * Creates a new image.
@@ -43,30 +68,234 @@ public class ImageController {
             @RequestParam MultipartFile[] files,
             @RequestParam(name = "multiple") String ignored
     ) {
-        return getResponse(() -> imageService.create(files));
+        return getResponse(() -> imageIngestService.ingest(files));
     }
 
     /**
-     * Retrieves all images.
+     * Retrieves a page of image metadata, in id order.
      *
+     * @param after The cursor returned with the previous page (optional).
+     * @param size  The number of images per page (optional).
      * @return ResponseEntity with a BasicResponse.
      */
     @GetMapping
-    public ResponseEntity<? extends BasicResponse> readAll() {
-        return getResponse(imageService::readAll);
+    public ResponseEntity<? extends BasicResponse> read(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size
+    ) {
+        return getResponse(() -> imageService.readPage(after, size));
     }
 
+    /**
+     * Retrieves the content of a specific image by name, streamed without loading it into memory.
+     * Images kept in local files are handed to the servlet container for zero-copy sendfile when supported.
+     * Conditional requests matching the current content are answered with 304 without reading the content.
+     * Requests for the current version of the image may be cached for good, others must be revalidated.
+     * A single byte range may be requested to resume or partially download the content, unless the length of
+     * the content was not recorded, in which case the whole content is streamed without a Content-Length.
+     * Giving a width, height or format requests a resized variant of the image instead.
+     *
+     * @param name     The name of the image.
+     * @param version  The expected version of the image content, optional.
+     * @param width    The maximum width of the variant, optional.
+     * @param height   The maximum height of the variant, optional.
+     * @param format   The format of the variant, "jpeg" or "png", optional.
+     * @param request  The HTTP request.
+     * @param response The HTTP response.
+     * @throws IOException If an I/O error occurs.
+     */
     @GetMapping("/{name}")
-    public ResponseEntity<byte[]> getImage(@PathVariable String name) {
-        byte[] imageData = imageService.getImage(name);
-        return ResponseEntity.status(OK).contentType(IMAGE_PNG).body(imageData);
+    public void getImage(
+            @PathVariable String name,
+            @RequestParam(name = "v", required = false) String version,
+            @RequestParam(name = "w", required = false) Integer width,
+            @RequestParam(name = "h", required = false) Integer height,
+            @RequestParam(name = "fmt", required = false) String format,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        var image = imageService.getImage(name);
+        var isCurrentVersion = version != null && version.equals(image.getContentHash());
+        response.setHeader(CACHE_CONTROL, (isCurrentVersion ? IMMUTABLE : REVALIDATE).getHeaderValue());
+        if (width != null || height != null || format != null) {
+            writeVariant(image, imageVariantService.getVariant(image, width, height, format), request, response);
+            return;
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(image.getEtag(), getLastModified(image)))
+            return;
+
+        response.setContentType(getContentType(image));
+        response.setHeader("Content-Security-Policy", CONTENT_SECURITY_POLICY);
+        if (image.getContentLength() == null) {
+            imageService.writeImage(image, 0, Long.MAX_VALUE, response.getOutputStream());
+            return;
+        }
+
+        long length = image.getContentLength();
+        response.setHeader(ACCEPT_RANGES, "bytes");
+        ByteRange range;
+        try {
+            range = getRange(request, image, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return;
+        }
+        if (range.length() != length) {
+            response.setStatus(PARTIAL_CONTENT.value());
+            response.setHeader(CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + length);
+        }
+        response.setContentLengthLong(range.length());
+
+        var file = imageService.getImageFile(image);
+        if (file.isPresent() && sendFile(request, file.get(), range))
+            return;
+        imageService.writeImage(image, range.start(), range.length(), response.getOutputStream());
     }
 
     /**
-     * Retrieves a specific image by name.
+     * Writes a resized variant of the image, answering 304 without generating it if the client has it already.
      *
+     * @param image    The original image.
+     * @param variant  The variant to write.
+     * @param request  The HTTP request.
+     * @param response The HTTP response.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeVariant(
+            Image image,
+            ImageVariant variant,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        if (new ServletWebRequest(request, response).checkNotModified(variant.etag(), getLastModified(image)))
+            return;
+        var content = imageVariantService.getContent(image, variant);
+        response.setContentType(variant.contentType());
+        response.setContentLength(content.length);
+        response.getOutputStream().write(content);
+    }
+
+    /**
+     * Resolves the part of the image content to send. The Range header is honored if it holds a single range
+     * and any If-Range validator matches the current content; otherwise the whole content is sent.
+     *
+     * @param request The HTTP request.
+     * @param image   The image.
+     * @param length  The length of the image content.
+     * @return range of the content to send.
+     * @throws IllegalArgumentException If the requested range cannot be satisfied.
+     */
+    private static ByteRange getRange(HttpServletRequest request, Image image, long length) {
+        var whole = new ByteRange(0, length - 1);
+        var header = request.getHeader(RANGE);
+        if (header == null || !isRangeApplicable(request, image))
+            return whole;
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return whole;
+        }
+        if (ranges.size() != 1)
+            return whole;
+        var range = ranges.get(0);
+        long start = range.getRangeStart(length);
+        long end = range.getRangeEnd(length);
+        if (start >= length || start > end)
+            throw new IllegalArgumentException("Range not satisfiable");
+        return new ByteRange(start, end);
+    }
+
+    /**
+     * Checks if the If-Range validator, if present, matches the current image content.
+     *
+     * @param request The HTTP request.
+     * @param image   The image.
+     * @return true if the range request applies to the current content, false otherwise.
+     */
+    private static boolean isRangeApplicable(HttpServletRequest request, Image image) {
+        var ifRange = request.getHeader(IF_RANGE);
+        if (ifRange == null)
+            return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+            return ifRange.equals(image.getEtag());
+        try {
+            long lastModified = getLastModified(image);
+            return lastModified >= 0 && request.getDateHeader(IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves the content type of the image as declared on upload.
+     *
+     * @param image The image.
+     * @return content type of the image, or application/octet-stream if it is missing or malformed.
+     */
+    private static String getContentType(Image image) {
+        if (image.getType() == null)
+            return APPLICATION_OCTET_STREAM_VALUE;
+        try {
+            return MediaType.parseMediaType(image.getType()).toString();
+        } catch (InvalidMediaTypeException e) {
+            return APPLICATION_OCTET_STREAM_VALUE;
+        }
+    }
+
+    /**
+     * Retrieves the time the image content was last uploaded.
+     *
+     * @param image The image.
+     * @return epoch milliseconds of the last upload, or -1 if unknown.
+     */
+    private static long getLastModified(Image image) {
+        if (image.getUpdatedAt() == null)
+            return -1;
+        return image.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Requests Tomcat to send the file with sendfile once the request completes, if the connector supports it.
+     *
+     * @param request The HTTP request.
+     * @param file    The file to send.
+     * @param range   The range of the file to send.
+     * @return true if the file will be sent by the container, false otherwise.
+     */
+    private boolean sendFile(HttpServletRequest request, Path file, ByteRange range) {
+        if (!Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support")))
+            return false;
+        request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+        request.setAttribute("org.apache.tomcat.sendfile.start", range.start());
+        request.setAttribute("org.apache.tomcat.sendfile.end", range.end() + 1);
+        return true;
+    }
+
+    /**
+     * Inclusive range of bytes of the image content.
+     *
+     * @param start The position of the first byte.
+     * @param end   The position of the last byte.
+     */
+    private record ByteRange(long start, long end) {
+        /**
+         * Retrieves the number of bytes in the range.
+         *
+         * @return length of the range.
+         */
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * Updates a specific image by name.
+     *
+     * @param file The new image file.
      * @param name The name of the image.
-     * @return ResponseEntity with the image data.
+     * @return ResponseEntity with a BasicResponse.
      */
     @PatchMapping("/{name}")
     public ResponseEntity<? extends BasicResponse> update(
@@ -2,15 +2,22 @@ package com.example.whynotpc.controllers;
 
 import com.example.whynotpc.models.dto.ProductDTO;
 import com.example.whynotpc.models.response.BasicResponse;
+import com.example.whynotpc.services.ProductSearchService;
 import com.example.whynotpc.services.ProductService;
+import com.example.whynotpc.services.ProductSuggestService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
+import static com.example.whynotpc.utils.ServiceCallHandler.getEncodedResponse;
 import static com.example.whynotpc.utils.ServiceCallHandler.getResponse;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
 /**
  * Controller class for handling product-related endpoints.
@@ -20,6 +27,8 @@ import static com.example.whynotpc.utils.ServiceCallHandler.getResponse;
 @RequestMapping("/api/products")
 public class ProductController {
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestService productSuggestService;
 
     /**
      * Creates a new product.
@@ -58,16 +67,83 @@ public class ProductController {
      * @param page     The page number for pagination (optional).
      * @param sort     The field to sort products by (optional).
      * @param order    The order for sorting (optional).
-     * @return ResponseEntity with a BasicResponse.
+     * @param acceptEncoding The content codings accepted by the client (optional).
+     * @return ResponseEntity with the encoded response, or 304 if it matches If-None-Match.
      */
     @GetMapping
-    public ResponseEntity<? extends BasicResponse> read(
+    public ResponseEntity<byte[]> read(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) String sort,
-            @RequestParam(required = false) String order
+            @RequestParam(required = false) String order,
+            @RequestHeader(name = ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return getEncodedResponse(() -> productService.read(category, page, sort, order), acceptEncoding);
+    }
+
+    /**
+     * Retrieves a page of products following a cursor, without counting pages unless asked to.
+     *
+     * @param category The category of products to filter by (optional).
+     * @param sort     The field to sort products by: id, price or title (optional).
+     * @param order    The order for sorting (optional).
+     * @param cursor   The cursor returned with the previous page, empty for the first page.
+     * @param total    Whether to include the total number of matching products (optional).
+     * @return ResponseEntity with a BasicResponse.
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<? extends BasicResponse> read(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "false") boolean total
+    ) {
+        return getResponse(() -> productService.read(category, sort, order, cursor, total));
+    }
+
+    /**
+     * Streams all products as newline-delimited JSON, one product per line, for full catalog exports.
+     *
+     * @param category The category of products to filter by (optional).
+     * @param ignored  Ignored parameter to differentiate from regular product listing.
+     * @param response The HTTP response to stream the products to.
+     * @throws IOException If an error occurs while writing the response.
+     */
+    @GetMapping(params = "export")
+    public void export(
+            @RequestParam(required = false) String category,
+            @RequestParam(name = "export") String ignored,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        productService.export(category, response.getOutputStream());
+    }
+
+    /**
+     * Searches products by title, matching every query word as a word, the last one also as a word prefix.
+     *
+     * @param q     The search query.
+     * @param limit The maximum number of products to return (optional).
+     * @return ResponseEntity with a BasicResponse.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<? extends BasicResponse> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit
     ) {
-        return getResponse(() -> productService.read(category, page, sort, order));
+        return getResponse(() -> productSearchService.search(q, limit));
+    }
+
+    /**
+     * Suggests the most popular product titles and category names starting with the typed prefix.
+     *
+     * @param prefix The prefix typed so far.
+     * @return ResponseEntity with a BasicResponse.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<? extends BasicResponse> suggest(@RequestParam String prefix) {
+        return getResponse(() -> productSuggestService.suggest(prefix));
     }
 
     /**
@@ -2,10 +2,13 @@ package com.example.whynotpc.models.dto;
 
 /**
  * A data transfer object (DTO) representing an image.
+ * The version identifies the image content and can be passed as the {@code v} query parameter
+ * to get a response cacheable for good.
  */
 public record ImageDTO(
         Long id,
         String name,
-        String type
+        String type,
+        String version
 ) {
 }
\ No newline at end of file
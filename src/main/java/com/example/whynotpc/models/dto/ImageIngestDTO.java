@@ -0,0 +1,27 @@
+package com.example.whynotpc.models.dto;
+
+/**
+ * A data transfer object (DTO) representing the result of ingesting a single file of a bulk image upload.
+ * The status is "created", "conflict" if an image with the same name exists, or "failed".
+ * Deduplicated images share their content with an image uploaded before or earlier in the same batch.
+ */
+public record ImageIngestDTO(
+        String name,
+        String status,
+        Long id,
+        String version,
+        boolean deduplicated,
+        String error
+) {
+    /**
+     * Creates the result of a file that could not be ingested.
+     *
+     * @param name   The name of the file.
+     * @param status The status of the file.
+     * @param error  The reason the file was not ingested.
+     * @return result of the file.
+     */
+    public static ImageIngestDTO rejected(String name, String status, String error) {
+        return new ImageIngestDTO(name, status, null, null, false, error);
+    }
+}
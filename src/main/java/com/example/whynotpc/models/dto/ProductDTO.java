@@ -1,15 +1,33 @@
 package com.example.whynotpc.models.dto;
 
+import com.example.whynotpc.models.product.Product;
+
 import java.math.BigDecimal;
 
 /**
  * A data transfer object (DTO) representing a product.
+ * The image version identifies the content of the product image and can be passed as the {@code v} query
+ * parameter of the image to get a response cacheable for good; it is null when not known.
  */
 public record ProductDTO(
         Long id,
         String title,
         BigDecimal price,
         String imgName,
-        String category
+        String category,
+        String imgVersion
 ) {
+    public ProductDTO(Long id, String title, BigDecimal price, String imgName, String category) {
+        this(id, title, price, imgName, category, null);
+    }
+
+    /**
+     * Converts a Product object to its corresponding DTO representation.
+     * @param product The Product object to convert.
+     * @return ProductDTO representation of the Product object.
+     */
+    public static ProductDTO from(Product product) {
+        return new ProductDTO(product.getId(), product.getTitle(), product.getPrice(),
+                product.getImgName(), product.getCategory().getName());
+    }
 }
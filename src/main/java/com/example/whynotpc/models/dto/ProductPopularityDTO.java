@@ -0,0 +1,10 @@
+package com.example.whynotpc.models.dto;
+
+/**
+ * A data transfer object (DTO) representing how many pieces of a product were ordered.
+ */
+public record ProductPopularityDTO(
+        Long productId,
+        Long ordered
+) {
+}
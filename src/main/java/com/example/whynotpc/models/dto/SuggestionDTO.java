@@ -0,0 +1,12 @@
+package com.example.whynotpc.models.dto;
+
+/**
+ * A data transfer object (DTO) representing a typeahead suggestion.
+ * The type tells whether the text is the title of a product or the name of a category.
+ */
+public record SuggestionDTO(
+        String text,
+        String type,
+        Long id
+) {
+}
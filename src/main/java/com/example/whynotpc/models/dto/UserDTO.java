@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 
 /**
  * A data transfer object (DTO) representing a user.
+ * The profile picture version identifies the content of the profile picture and can be passed as the {@code v}
+ * query parameter of the image to get a response cacheable for good; it is null when not known.
  */
 public record UserDTO(
         Long id,
@@ -20,17 +22,19 @@ public record UserDTO(
         @JsonFormat(pattern = "MM-dd-yyyy hh:mm a z",
                 timezone = "Europe/Moscow")
         LocalDateTime createdAt,
-        String profilePicName
+        String profilePicName,
+        String profilePicVersion
 ) {
     public UserDTO(String firstname, String lastname, String username, String email,
                    String password, String role, LocalDateTime createdAt
     ) {
-        this(null, firstname, lastname, username, email, password, role, createdAt, null);
+        this(null, firstname, lastname, username, email, password, role, createdAt, null, null);
     }
 
     public UserDTO(Long id, String firstname, String lastname, String username,
-                   String email, String role, LocalDateTime createdAt, String getProfilePicName
+                   String email, String role, LocalDateTime createdAt, String getProfilePicName,
+                   String profilePicVersion
     ) {
-        this(id, firstname, lastname, username, email, null, role, createdAt, getProfilePicName);
+        this(id, firstname, lastname, username, email, null, role, createdAt, getProfilePicName, profilePicVersion);
     }
 }
@@ -5,12 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.JdbcTypeCode;
 
-import java.sql.Types;
+import java.time.LocalDateTime;
 
 /**
- * Entity class representing an image stored in the database.
+ * Entity class representing the metadata of an image. The content itself is kept in the image store.
  */
 @Data
 @Entity
@@ -19,7 +18,8 @@ import java.sql.Types;
 @AllArgsConstructor
 @Table(
         name = "images",
-        uniqueConstraints = @UniqueConstraint(columnNames = "name")
+        uniqueConstraints = @UniqueConstraint(columnNames = "name"),
+        indexes = @Index(columnList = "content_hash")
 )
 
 public class Image {
@@ -41,9 +41,35 @@ public class Image {
     private String type;
 
     /**
-     * The binary data of the image.
+     * The SHA-256 digest of the image content, used as its key in the image store.
      */
-    @Lob
-    @JdbcTypeCode(Types.LONGVARBINARY)
-    private byte[] imageData;
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * The size of the image content in bytes, as served.
+     */
+    private Long contentLength;
+
+    /**
+     * The encoding of the image content in the image store.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ImageCodec codec;
+
+    /**
+     * The time the image content was last uploaded.
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * Retrieves the entity tag of the image content. Since the content hash changes with every new content,
+     * it serves as a strong validator.
+     *
+     * @return quoted entity tag, or null if the content hash is unknown.
+     */
+    public String getEtag() {
+        return contentHash == null ? null : '"' + contentHash + '"';
+    }
 }
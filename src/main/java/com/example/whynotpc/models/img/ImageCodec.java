@@ -0,0 +1,7 @@
+package com.example.whynotpc.models.img;
+
+/**
+ * Enum representing how the content of an image is encoded in the image store.
+ * RAW content is stored as uploaded, DEFLATE content is stored deflated and inflated on read.
+ */
+public enum ImageCodec {RAW, DEFLATE}
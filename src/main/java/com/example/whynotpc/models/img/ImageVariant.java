@@ -0,0 +1,38 @@
+package com.example.whynotpc.models.img;
+
+/**
+ * A resized and re-encoded variant of an image content.
+ *
+ * @param contentHash The SHA-256 digest of the original image content.
+ * @param width       The maximum width of the variant, 0 if unconstrained.
+ * @param height      The maximum height of the variant, 0 if unconstrained.
+ * @param format      The image format of the variant, "jpeg" or "png".
+ */
+public record ImageVariant(String contentHash, int width, int height, String format) {
+    /**
+     * Retrieves the content type of the variant.
+     *
+     * @return content type of the variant.
+     */
+    public String contentType() {
+        return "image/" + format;
+    }
+
+    /**
+     * Retrieves the entity tag of the variant, derived from the original content and the variant parameters.
+     *
+     * @return quoted entity tag.
+     */
+    public String etag() {
+        return '"' + contentHash + '-' + width + 'x' + height + '.' + format + '"';
+    }
+
+    /**
+     * Retrieves the name of the file the variant is cached in.
+     *
+     * @return file name of the variant.
+     */
+    public String fileName() {
+        return contentHash + '-' + width + 'x' + height + '.' + format;
+    }
+}
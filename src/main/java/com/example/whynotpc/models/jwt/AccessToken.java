@@ -5,6 +5,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents an access token entity, which is used for authentication.
  */
@@ -13,7 +15,13 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "access_tokens")
+@Table(
+        name = "access_tokens",
+        indexes = {
+                @Index(name = "idx_access_tokens_token_hash", columnList = "token_hash", unique = true),
+                @Index(name = "idx_access_tokens_user_token_id", columnList = "user_id, token_id"),
+                @Index(name = "idx_access_tokens_expires_at", columnList = "expires_at")
+        })
 public class AccessToken {
     /**
      * The unique identifier of the access token.
@@ -23,9 +31,22 @@ public class AccessToken {
     private Long id;
 
     /**
-     * The access token string.
+     * The SHA-256 digest of the access token string, which is not stored itself.
+     */
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    /**
+     * The id (jti claim) of the access token.
+     */
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    /**
+     * The expiration of the access token, after which it is deleted.
      */
-    private String token;
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
 
     /**
      * The associated refresh token. This relationship is excluded from toString method.
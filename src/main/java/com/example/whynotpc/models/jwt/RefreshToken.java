@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents a refresh token entity, which is used for refreshing access tokens.
  */
@@ -12,7 +14,12 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "refresh_tokens")
+@Table(
+        name = "refresh_tokens",
+        indexes = {
+                @Index(name = "idx_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+                @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+        })
 public class RefreshToken {
     /**
      * The unique identifier of the refresh token.
@@ -22,9 +29,22 @@ public class RefreshToken {
     private Long id;
 
     /**
-     * The refresh token string.
+     * The SHA-256 digest of the refresh token string, which is not stored itself.
+     */
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    /**
+     * The id (jti claim) of the refresh token.
+     */
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    /**
+     * The expiration of the refresh token, after which it is deleted.
      */
-    private String token;
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
 
     /**
      * The associated access token. This relationship is excluded from toString method.
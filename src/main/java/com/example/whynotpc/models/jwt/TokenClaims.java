@@ -0,0 +1,76 @@
+package com.example.whynotpc.models.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Represents the claims of a verified JWT, extracted in a single pass.
+ */
+public record TokenClaims(
+        String id,
+        String subject,
+        String type,
+        Long userId,
+        String role,
+        Date issuedAt,
+        Date expiration
+) {
+    /**
+     * Claim holding the ID of the user the token was issued to.
+     */
+    public static final String USER_ID_CLAIM = "uid";
+
+    /**
+     * Claim holding the role of the user the token was issued to.
+     */
+    public static final String ROLE_CLAIM = "role";
+
+    /**
+     * Claim holding the type of the token.
+     */
+    public static final String TYPE_CLAIM = "type";
+
+    /**
+     * Type of access tokens.
+     */
+    public static final String ACCESS_TYPE = "access";
+
+    /**
+     * Type of refresh tokens.
+     */
+    public static final String REFRESH_TYPE = "refresh";
+
+    /**
+     * Creates TokenClaims from the parsed claims of a JWT.
+     *
+     * @param claims The parsed claims.
+     * @return TokenClaims holding the values of the claims.
+     */
+    public static TokenClaims of(Claims claims) {
+        return new TokenClaims(claims.getId(), claims.getSubject(), claims.get(TYPE_CLAIM, String.class),
+                claims.get(USER_ID_CLAIM, Long.class), claims.get(ROLE_CLAIM, String.class),
+                claims.getIssuedAt(), claims.getExpiration());
+    }
+
+    /**
+     * Retrieves the expiration of the token as a local date-time, the way it is stored.
+     *
+     * @return expiration of the token, or null if the token does not expire.
+     */
+    public LocalDateTime expiresAt() {
+        return expiration == null ? null : LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Checks if the token is an access token carrying the user ID and role, so that it can be
+     * validated without loading the user.
+     *
+     * @return True if the token is self-contained, false otherwise.
+     */
+    public boolean isSelfContainedAccessToken() {
+        return ACCESS_TYPE.equals(type) && id != null && userId != null && role != null;
+    }
+}
@@ -10,13 +10,24 @@ import java.util.List;
 
 /**
  * Represents a product entity.
+ * The indexes on the sort keys, with and without the category, let cursor pages seek instead of scanning.
  */
 @Data
 @Entity
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "products", uniqueConstraints = {@UniqueConstraint(columnNames = "title")})
+@Table(
+        name = "products",
+        uniqueConstraints = {@UniqueConstraint(columnNames = "title")},
+        indexes = {
+                @Index(columnList = "img_name"),
+                @Index(columnList = "category_id, price, id"),
+                @Index(columnList = "category_id, title, id"),
+                @Index(columnList = "price, id"),
+                @Index(columnList = "title, id")
+        }
+)
 public class Product {
     /**
      * The unique identifier of the product.
@@ -0,0 +1,45 @@
+package com.example.whynotpc.models.response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import static com.example.whynotpc.utils.HashUtils.sha256Hex;
+
+/**
+ * Represents a response already serialized to JSON, kept both as is and gzip-compressed,
+ * so that it can be served repeatedly without being serialized or compressed again.
+ *
+ * @param statusCode The HTTP status code of the response.
+ * @param json The JSON body of the response.
+ * @param gzip The gzip-compressed JSON body of the response.
+ * @param hash The hex-encoded SHA-256 digest of the JSON body.
+ */
+public record EncodedResponse(int statusCode, byte[] json, byte[] gzip, String hash) {
+    /**
+     * Factory method to create an EncodedResponse from the given JSON body, compressing and hashing it.
+     * @param statusCode The HTTP status code of the response.
+     * @param json The JSON body of the response.
+     * @return EncodedResponse holding the given body.
+     */
+    public static EncodedResponse of(int statusCode, byte[] json) {
+        var compressed = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (var out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new EncodedResponse(statusCode, json, compressed.toByteArray(), sha256Hex(json));
+    }
+
+    /**
+     * Retrieves the strong entity tag of the body in the given encoding. Each encoding gets its own tag,
+     * since the bytes sent differ.
+     * @param gzipped Whether the gzip-compressed body is sent.
+     * @return quoted entity tag.
+     */
+    public String etag(boolean gzipped) {
+        return '"' + hash + (gzipped ? "-gzip" : "") + '"';
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.whynotpc.models.response;
+
+import com.example.whynotpc.models.dto.ImageIngestDTO;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Represents a response for bulk image uploads, holding the result of every file.
+ * Extends BasicResponse class.
+ */
+public class ImageIngestResponse extends BasicResponse {
+    /**
+     * The list of per-file results included in the response.
+     */
+    @JsonProperty
+    private final List<ImageIngestDTO> results;
+
+    /**
+     * Constructs a new ImageIngestResponse with the given status code and list of results.
+     * @param statusCode The HTTP status code of the response.
+     * @param results The list of per-file results to include in the response.
+     */
+    public ImageIngestResponse(int statusCode, List<ImageIngestDTO> results) {
+        super(statusCode);
+        this.results = results;
+    }
+
+    /**
+     * Factory method to create an ImageIngestResponse with HTTP status code 200 (OK) and the given results.
+     * @param results The list of per-file results to include in the response.
+     * @return ImageIngestResponse with status code 200 and the given results.
+     */
+    public static ImageIngestResponse ok(List<ImageIngestDTO> results) {
+        return new ImageIngestResponse(200, results);
+    }
+
+    /**
+     * Factory method to create an ImageIngestResponse with HTTP status code 201 (Created) and the given results.
+     * @param results The list of per-file results to include in the response.
+     * @return ImageIngestResponse with status code 201 and the given results.
+     */
+    public static ImageIngestResponse created(List<ImageIngestDTO> results) {
+        return new ImageIngestResponse(201, results);
+    }
+}
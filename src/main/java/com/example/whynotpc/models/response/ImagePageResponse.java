@@ -0,0 +1,46 @@
+package com.example.whynotpc.models.response;
+
+import com.example.whynotpc.models.dto.ImageDTO;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Represents a response for image page-related operations.
+ * Extends BasicResponse class.
+ */
+public class ImagePageResponse extends BasicResponse {
+    /**
+     * The list of image DTOs included in the response.
+     */
+    @JsonProperty
+    private final List<ImageDTO> images;
+
+    /**
+     * The cursor to pass as the {@code after} parameter to get the next page, or null if this is the last page.
+     */
+    @JsonProperty
+    Long next;
+
+    /**
+     * Constructs a new ImagePageResponse with the given status code, page of images and next page cursor.
+     * @param statusCode The HTTP status code of the response.
+     * @param images The page of images to include in the response.
+     * @param next The cursor of the next page, or null if there is none.
+     */
+    public ImagePageResponse(int statusCode, List<ImageDTO> images, Long next) {
+        super(statusCode);
+        this.images = images;
+        this.next = next;
+    }
+
+    /**
+     * Factory method to create an ImagePageResponse with HTTP status code 200 (OK) and the given page of images.
+     * @param images The page of images to include in the response.
+     * @param next The cursor of the next page, or null if there is none.
+     * @return ImagePageResponse with status code 200 and the given page of images.
+     */
+    public static ImagePageResponse ok(List<ImageDTO> images, Long next) {
+        return new ImagePageResponse(200, images, next);
+    }
+}
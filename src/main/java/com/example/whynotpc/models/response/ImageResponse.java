@@ -24,7 +24,7 @@ public class ImageResponse extends BasicResponse {
      * @return ImageDTO representation of the Image object.
      */
     private ImageDTO toDto(Image image) {
-        return new ImageDTO(image.getId(), image.getName(), image.getType());
+        return new ImageDTO(image.getId(), image.getName(), image.getType(), image.getContentHash());
     }
 
     /**
@@ -1,7 +1,6 @@
 package com.example.whynotpc.models.response;
 
 import com.example.whynotpc.models.dto.ProductDTO;
-import com.example.whynotpc.models.product.Product;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.domain.Page;
 
@@ -30,24 +29,14 @@ public class ProductPageResponse extends BasicResponse {
     @JsonProperty
     int currentPage;
 
-    /**
-     * Converts a Product object to its corresponding DTO representation.
-     * @param product The Product object to convert.
-     * @return ProductDTO representation of the Product object.
-     */
-    private ProductDTO toDTO(Product product) {
-        return new ProductDTO(product.getId(), product.getTitle(), product.getPrice(),
-                product.getImgName(), product.getCategory().getName());
-    }
-
     /**
      * Constructs a new ProductPageResponse with the given status code and product page.
      * @param statusCode The HTTP status code of the response.
      * @param productPage The product page to include in the response.
      */
-    public ProductPageResponse(int statusCode, Page<Product> productPage) {
+    public ProductPageResponse(int statusCode, Page<ProductDTO> productPage) {
         super(statusCode);
-        this.products = productPage.map(this::toDTO).toList();
+        this.products = productPage.getContent();
         this.totalPages = productPage.getTotalPages();
         this.currentPage = productPage.getPageable().getPageNumber();
     }
@@ -57,9 +46,9 @@ public class ProductPageResponse extends BasicResponse {
      * @param statusCode The HTTP status code of the response.
      * @param products The list of products to include in the response.
      */
-    public ProductPageResponse(int statusCode, List<Product> products) {
+    public ProductPageResponse(int statusCode, List<ProductDTO> products) {
         super(statusCode);
-        this.products = products.stream().map(this::toDTO).toList();
+        this.products = products;
         this.totalPages = 1;
         this.currentPage = 0;
     }
@@ -69,7 +58,7 @@ public class ProductPageResponse extends BasicResponse {
      * @param productPage The product page to include in the response.
      * @return ProductPageResponse with status code 200 and the given product page.
      */
-    public static ProductPageResponse ok(Page<Product> productPage) {
+    public static ProductPageResponse ok(Page<ProductDTO> productPage) {
         return new ProductPageResponse(200, productPage);
     }
 
@@ -78,7 +67,7 @@ public class ProductPageResponse extends BasicResponse {
      * @param products The list of products to include in the response.
      * @return ProductPageResponse with status code 200 and the given list of products.
      */
-    public static ProductPageResponse ok(List<Product> products) {
+    public static ProductPageResponse ok(List<ProductDTO> products) {
         return new ProductPageResponse(200, products);
     }
 }
@@ -1,7 +1,6 @@
 package com.example.whynotpc.models.response;
 
 import com.example.whynotpc.models.dto.ProductDTO;
-import com.example.whynotpc.models.product.Product;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Collections;
@@ -18,24 +17,14 @@ public class ProductResponse extends BasicResponse {
     @JsonProperty
     private final List<ProductDTO> products;
 
-    /**
-     * Converts a Product object to its corresponding DTO representation.
-     * @param product The Product object to convert.
-     * @return ProductDTO representation of the Product object.
-     */
-    private ProductDTO toDTO(Product product) {
-        return new ProductDTO(product.getId(), product.getTitle(), product.getPrice(),
-                product.getImgName(), product.getCategory().getName());
-    }
-
     /**
      * Constructs a new ProductResponse with the given status code and list of products.
      * @param statusCode The HTTP status code of the response.
      * @param products list of products to include in the response.
      */
-    public ProductResponse(int statusCode, List<Product> products) {
+    public ProductResponse(int statusCode, List<ProductDTO> products) {
         super(statusCode);
-        this.products = products.stream().map(this::toDTO).toList();
+        this.products = products;
     }
 
     /**
@@ -43,9 +32,9 @@ public class ProductResponse extends BasicResponse {
      * @param statusCode The HTTP status code of the response.
      * @param product product to include in the response.
      */
-    public ProductResponse(int statusCode, Product product) {
+    public ProductResponse(int statusCode, ProductDTO product) {
         super(statusCode);
-        this.products = Collections.singletonList(toDTO(product));
+        this.products = Collections.singletonList(product);
     }
 
     /**
@@ -53,7 +42,7 @@ public class ProductResponse extends BasicResponse {
      * @param products The list of products to include in the response.
      * @return ProductResponse with status code 200 and the given list of products.
      */
-    public static ProductResponse ok(List<Product> products) {
+    public static ProductResponse ok(List<ProductDTO> products) {
         return new ProductResponse(200, products);
     }
 
@@ -62,7 +51,7 @@ public class ProductResponse extends BasicResponse {
      * @param product The product to include in the response.
      * @return ProductResponse with status code 200 and the given product.
      */
-    public static ProductResponse ok(Product product) {
+    public static ProductResponse ok(ProductDTO product) {
         return new ProductResponse(200, product);
     }
 
@@ -71,7 +60,7 @@ public class ProductResponse extends BasicResponse {
      * @param products The list of products to include in the response.
      * @return ProductResponse with status code 201 and the given list of products.
      */
-    public static ProductResponse created(List<Product> products) {
+    public static ProductResponse created(List<ProductDTO> products) {
         return new ProductResponse(201, products);
     }
 
@@ -80,7 +69,7 @@ public class ProductResponse extends BasicResponse {
      * @param product The product to include in the response.
      * @return ProductResponse with status code 201 and the given product.
      */
-    public static ProductResponse created(Product product) {
+    public static ProductResponse created(ProductDTO product) {
         return new ProductResponse(201, product);
     }
 }
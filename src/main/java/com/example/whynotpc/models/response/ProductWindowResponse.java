@@ -0,0 +1,55 @@
+package com.example.whynotpc.models.response;
+
+import com.example.whynotpc.models.dto.ProductDTO;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Represents a response for cursor-paginated product operations.
+ * Extends BasicResponse class.
+ */
+public class ProductWindowResponse extends BasicResponse {
+    /**
+     * The list of product DTOs included in the response.
+     */
+    @JsonProperty
+    private final List<ProductDTO> products;
+
+    /**
+     * The cursor to pass to get the next page, or null if this is the last page.
+     */
+    @JsonProperty
+    String next;
+
+    /**
+     * The total number of matching products, or null if not requested.
+     */
+    @JsonProperty
+    Long total;
+
+    /**
+     * Constructs a new ProductWindowResponse with the given status code, page of products, next cursor and total.
+     * @param statusCode The HTTP status code of the response.
+     * @param products The page of products to include in the response.
+     * @param next The cursor of the next page, or null if there is none.
+     * @param total The total number of matching products, or null if not requested.
+     */
+    public ProductWindowResponse(int statusCode, List<ProductDTO> products, String next, Long total) {
+        super(statusCode);
+        this.products = products;
+        this.next = next;
+        this.total = total;
+    }
+
+    /**
+     * Factory method to create a ProductWindowResponse with HTTP status code 200 (OK) and the given page of products.
+     * @param products The page of products to include in the response.
+     * @param next The cursor of the next page, or null if there is none.
+     * @param total The total number of matching products, or null if not requested.
+     * @return ProductWindowResponse with status code 200 and the given page of products.
+     */
+    public static ProductWindowResponse ok(List<ProductDTO> products, String next, Long total) {
+        return new ProductWindowResponse(200, products, next, total);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.whynotpc.models.response;
+
+import com.example.whynotpc.models.dto.SuggestionDTO;
+import com.example.whynotpc.utils.SuggestionTrie.Suggestion;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Represents a response for typeahead suggestion operations.
+ * Extends BasicResponse class.
+ */
+public class SuggestionResponse extends BasicResponse {
+    /**
+     * The list of suggestion DTOs included in the response, most popular first.
+     */
+    @JsonProperty
+    private final List<SuggestionDTO> suggestions;
+
+    /**
+     * Constructs a new SuggestionResponse with the given status code and suggestions.
+     * @param statusCode The HTTP status code of the response.
+     * @param suggestions The suggestions to include in the response.
+     */
+    public SuggestionResponse(int statusCode, List<Suggestion> suggestions) {
+        super(statusCode);
+        this.suggestions = suggestions.stream()
+                .map(suggestion -> new SuggestionDTO(suggestion.text(), suggestion.type(), suggestion.id()))
+                .toList();
+    }
+
+    /**
+     * Factory method to create a SuggestionResponse with HTTP status code 200 (OK) and the given suggestions.
+     * @param suggestions The suggestions to include in the response.
+     * @return SuggestionResponse with status code 200 and the given suggestions.
+     */
+    public static SuggestionResponse ok(List<Suggestion> suggestions) {
+        return new SuggestionResponse(200, suggestions);
+    }
+}
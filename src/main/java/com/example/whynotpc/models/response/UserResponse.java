@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Represents a response for user-related operations.
@@ -21,57 +22,64 @@ public class UserResponse extends BasicResponse {
     /**
      * Converts a User object to its corresponding DTO representation.
      * @param user The User object to convert.
+     * @param imageVersions Function resolving the version of an image by name, returning null if not found.
      * @return UserDTO representation of the User object.
      */
-    private UserDTO toDTO(User user) {
+    private static UserDTO toDTO(User user, Function<String, String> imageVersions) {
         return new UserDTO(user.getId(), user.getFirstname(), user.getLastname(),
-                user.getUsername(), user.getEmail(), user.getRole().name(), user.getCreatedAt(), user.getProfilePicName());
+                user.getUsername(), user.getEmail(), user.getRole().name(), user.getCreatedAt(),
+                user.getProfilePicName(), imageVersions.apply(user.getProfilePicName()));
     }
 
     /**
      * Constructs a new UserResponse with the given status code and list of users.
      * @param statusCode The HTTP status code of the response.
      * @param users The list of users to include in the response.
+     * @param imageVersions Function resolving the version of a profile picture by name.
      */
-    public UserResponse(int statusCode, List<User> users) {
+    public UserResponse(int statusCode, List<User> users, Function<String, String> imageVersions) {
         super(statusCode);
-        this.users = users.stream().map(this::toDTO).toList();
+        this.users = users.stream().map(user -> toDTO(user, imageVersions)).toList();
     }
 
     /**
      * Constructs a new UserResponse with the given status code and user.
      * @param statusCode The HTTP status code of the response.
      * @param user The user to include in the response.
+     * @param imageVersions Function resolving the version of a profile picture by name.
      */
-    public UserResponse(int statusCode, User user) {
+    public UserResponse(int statusCode, User user, Function<String, String> imageVersions) {
         super(statusCode);
-        this.users = Collections.singletonList(toDTO(user));
+        this.users = Collections.singletonList(toDTO(user, imageVersions));
     }
 
     /**
      * Factory method to create a UserResponse with HTTP status code 200 (OK) and the given list of users.
      * @param users The list of users to include in the response.
+     * @param imageVersions Function resolving the version of a profile picture by name.
      * @return UserResponse with status code 200 and the given list of users.
      */
-    public static UserResponse ok(List<User> users) {
-        return new UserResponse(200, users);
+    public static UserResponse ok(List<User> users, Function<String, String> imageVersions) {
+        return new UserResponse(200, users, imageVersions);
     }
 
     /**
      * Factory method to create a UserResponse with HTTP status code 200 (OK) and the given user.
      * @param user The user to include in the response.
+     * @param imageVersions Function resolving the version of a profile picture by name.
      * @return UserResponse with status code 200 and the given user.
      */
-    public static UserResponse ok(User user) {
-        return new UserResponse(200, user);
+    public static UserResponse ok(User user, Function<String, String> imageVersions) {
+        return new UserResponse(200, user, imageVersions);
     }
 
     /**
      * Factory method to create a UserResponse with HTTP status code 201 (Created) and the given user.
      * @param user The user to include in the response.
+     * @param imageVersions Function resolving the version of a profile picture by name.
      * @return UserResponse with status code 201 and the given user.
      */
-    public static UserResponse created(User user) {
-        return new UserResponse(201, user);
+    public static UserResponse created(User user, Function<String, String> imageVersions) {
+        return new UserResponse(201, user, imageVersions);
     }
 }
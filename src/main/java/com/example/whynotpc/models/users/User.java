@@ -26,7 +26,8 @@ import java.util.List;
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "username"),
                 @UniqueConstraint(columnNames = "email")
-        })
+        },
+        indexes = @Index(columnList = "profile_pic_name"))
 public class User implements UserDetails {
     @Id
     @GeneratedValue
@@ -0,0 +1,166 @@
+package com.example.whynotpc.persistence.img;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.example.whynotpc.utils.HashUtils.sha256;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+/**
+ * Image store keeping contents as files under a root directory, at {@code <root>/<key[0..2]>/<key>}.
+ * Contents are written to a temporary file while being hashed and then moved into place atomically,
+ * so readers never observe partially written files. Deleted contents are moved out of place atomically too,
+ * so a content stored again while being deleted is never lost.
+ */
+@Component
+@ConditionalOnProperty(name = "application.images.store.type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemImageStore implements ImageStore {
+    private final Path root;
+    private final Path tmp;
+
+    /**
+     * Constructs a new FileSystemImageStore, creating its directories if needed.
+     *
+     * @param root The root directory of the store.
+     * @throws IOException If the directories cannot be created.
+     */
+    public FileSystemImageStore(@Value("${application.images.store.root:images}") Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.tmp = Files.createDirectories(this.root.resolve("tmp"));
+    }
+
+    @Override
+    public StoredBlob put(InputStream content) throws IOException {
+        var tmpFile = Files.createTempFile(tmp, "upload", null);
+        try {
+            var digest = sha256();
+            long size;
+            try (var out = new DigestOutputStream(Files.newOutputStream(tmpFile), digest)) {
+                size = content.transferTo(out);
+            }
+            var key = HexFormat.of().formatHex(digest.digest());
+            var target = resolve(key);
+            while (true) {
+                if (Files.notExists(target)) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(tmpFile, target, ATOMIC_MOVE);
+                        return new StoredBlob(key, size);
+                    } catch (FileAlreadyExistsException ignored) {
+                    }
+                }
+                try {
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    return new StoredBlob(key, size);
+                } catch (NoSuchFileException e) {
+                    // reaped since checked, store it again
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void transferTo(String key, long position, long count, OutputStream out) throws IOException {
+        try (var channel = FileChannel.open(resolve(key))) {
+            var target = Channels.newChannel(out);
+            long end = position + Math.min(count, Math.max(0, channel.size() - position));
+            while (position < end)
+                position += channel.transferTo(position, end - position, target);
+        }
+    }
+
+    @Override
+    public Optional<Path> file(String key) {
+        var file = resolve(key);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @Override
+    public Stream<StoredEntry> list() throws IOException {
+        return Files.find(root, 2, (file, attributes) -> attributes.isRegularFile() && isContentFile(file))
+                .map(file -> {
+                    try {
+                        return new StoredEntry(file.getFileName().toString(), Files.getLastModifiedTime(file).toInstant());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The file is first moved out of place atomically and its modification time checked afterwards, so a
+     * concurrent {@link #put} either refreshes it before the move, which puts it back, or finds it gone
+     * and stores it again.
+     */
+    @Override
+    public boolean deleteIfUnmodifiedSince(String key, Instant cutoff) throws IOException {
+        var file = resolve(key);
+        var reaped = tmp.resolve(key + "-" + UUID.randomUUID());
+        try {
+            Files.move(file, reaped, ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try {
+            if (Files.getLastModifiedTime(reaped).toInstant().isBefore(cutoff))
+                return true;
+            Files.move(reaped, file, ATOMIC_MOVE);
+            return false;
+        } finally {
+            Files.deleteIfExists(reaped);
+        }
+    }
+
+    /**
+     * Checks if the file holds stored content, as opposed to temporary files or other files under the root.
+     *
+     * @param file The file to check.
+     * @return true if the file holds stored content, false otherwise.
+     */
+    private boolean isContentFile(Path file) {
+        var name = file.getFileName().toString();
+        return name.length() == 64
+                && file.getParent().getParent().equals(root)
+                && file.getParent().getFileName().toString().equals(name.substring(0, 2));
+    }
+
+    /**
+     * Resolves the file of the content with the given key.
+     *
+     * @param key The key of the content.
+     * @return path of the content file.
+     * @throws IllegalArgumentException If the key is not a hex-encoded SHA-256 digest.
+     */
+    private Path resolve(String key) {
+        if (key == null || key.length() != 64 || !key.chars().allMatch(c -> Character.digit(c, 16) >= 0))
+            throw new IllegalArgumentException("Invalid image key");
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
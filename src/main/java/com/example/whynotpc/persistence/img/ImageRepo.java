@@ -1,9 +1,17 @@
 package com.example.whynotpc.persistence.img;
 
+import com.example.whynotpc.models.dto.ImageDTO;
 import com.example.whynotpc.models.img.Image;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repository interface for managing image entities.
@@ -16,10 +24,55 @@ public interface ImageRepo extends JpaRepository<Image, Long> {
      */
     Optional<Image> findByName(String name);
 
+    /**
+     * Finds an image by its name and locks it against deletion until the end of the transaction,
+     * while still letting other transactions take the same lock.
+     * @param name The name of the image to find.
+     * @return Optional containing the image if found, or empty if not found.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<Image> findSharedByName(String name);
+
+    /**
+     * Finds an image by its name and locks it exclusively until the end of the transaction.
+     * @param name The name of the image to find.
+     * @return Optional containing the image if found, or empty if not found.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Image> findLockedByName(String name);
+
     /**
      * Checks if an image with the given name exists.
      * @param name The name of the image to check.
      * @return true if an image with the given name exists, false otherwise.
      */
     boolean existsByName(String name);
+
+    /**
+     * Finds which of the given names are already taken by images.
+     * @param names The names to check.
+     * @return set of the names taken by images.
+     */
+    @Query("SELECT i.name FROM Image i WHERE i.name IN :names")
+    Set<String> findExistingNames(Collection<String> names);
+
+    /**
+     * Finds which of the given content digests are already referenced by images.
+     * @param contentHashes The SHA-256 digests of the contents to check.
+     * @return set of the digests referenced by images.
+     */
+    @Query("SELECT DISTINCT i.contentHash FROM Image i WHERE i.contentHash IN :contentHashes")
+    Set<String> findExistingContentHashes(Collection<String> contentHashes);
+
+    /**
+     * Finds the metadata of the images following the given id, in id order.
+     * Only the listed columns are selected, and the id index lets every page start at its cursor
+     * instead of skipping the preceding rows.
+     * @param after The id after which the page starts.
+     * @param limit The maximum number of images to find.
+     * @return list of image DTOs.
+     */
+    @Query("SELECT new com.example.whynotpc.models.dto.ImageDTO(i.id, i.name, i.type, i.contentHash) " +
+            "FROM Image i WHERE i.id > :after ORDER BY i.id")
+    List<ImageDTO> findPageAfter(long after, Limit limit);
 }
@@ -0,0 +1,104 @@
+package com.example.whynotpc.persistence.img;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of image contents, addressed by the SHA-256 digest of the content.
+ * Only image metadata is kept in the database; the bytes live in the store.
+ * Contents are never deleted on the spot when an image goes away, since another upload of the same content
+ * may be referencing it concurrently; unreferenced contents are collected once they have not been stored
+ * again for a grace period.
+ */
+public interface ImageStore {
+    /**
+     * Stores the content read from the given stream. Storing the same content twice keeps a single copy,
+     * but refreshes its modification time.
+     *
+     * @param content The stream of the content to store, not closed by this method.
+     * @return key and size of the stored content.
+     * @throws IOException If an I/O error occurs.
+     */
+    StoredBlob put(InputStream content) throws IOException;
+
+    /**
+     * Opens a stream of the stored content.
+     *
+     * @param key The key of the content.
+     * @return stream of the content.
+     * @throws IOException If the content is missing or an I/O error occurs.
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Writes the stored content to the given stream.
+     *
+     * @param key The key of the content.
+     * @param out The stream to write to, not closed by this method.
+     * @throws IOException If the content is missing or an I/O error occurs.
+     */
+    default void transferTo(String key, OutputStream out) throws IOException {
+        transferTo(key, 0, Long.MAX_VALUE, out);
+    }
+
+    /**
+     * Writes a part of the stored content to the given stream.
+     *
+     * @param key      The key of the content.
+     * @param position The position of the first byte to write.
+     * @param count    The maximum number of bytes to write.
+     * @param out      The stream to write to, not closed by this method.
+     * @throws IOException If the content is missing or an I/O error occurs.
+     */
+    void transferTo(String key, long position, long count, OutputStream out) throws IOException;
+
+    /**
+     * Retrieves the local file holding the content, allowing it to be sent without copying through the heap.
+     *
+     * @param key The key of the content.
+     * @return file of the content, or empty if the store is not backed by local files.
+     */
+    Optional<Path> file(String key);
+
+    /**
+     * Lists all stored contents. The returned stream must be closed.
+     *
+     * @return stream of the stored contents.
+     * @throws IOException If the store cannot be listed.
+     */
+    Stream<StoredEntry> list() throws IOException;
+
+    /**
+     * Deletes the stored content, unless it was stored again since the cutoff. The modification time is checked
+     * when deleting rather than when listing, so a content stored again by an upload in the meantime is kept.
+     *
+     * @param key    The key of the content.
+     * @param cutoff The time the content must not have been stored since.
+     * @return true if the content was deleted, false if it is missing or was stored since the cutoff.
+     * @throws IOException If an I/O error occurs.
+     */
+    boolean deleteIfUnmodifiedSince(String key, Instant cutoff) throws IOException;
+
+    /**
+     * Key and size of stored content.
+     *
+     * @param key  The SHA-256 digest of the content, hex-encoded.
+     * @param size The size of the content in bytes.
+     */
+    record StoredBlob(String key, long size) {
+    }
+
+    /**
+     * Key and modification time of stored content.
+     *
+     * @param key          The SHA-256 digest of the content, hex-encoded.
+     * @param lastModified The time the content was last stored.
+     */
+    record StoredEntry(String key, Instant lastModified) {
+    }
+}
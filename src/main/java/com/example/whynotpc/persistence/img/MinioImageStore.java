@@ -0,0 +1,220 @@
+package com.example.whynotpc.persistence.img;
+
+import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import io.minio.messages.VersioningConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.example.whynotpc.utils.HashUtils.sha256;
+
+/**
+ * Image store keeping contents as objects in a MinIO or other S3-compatible bucket, keyed by their digest.
+ * Uploads are spooled to a temporary file first, since the key is only known once the whole content is read.
+ * <p>
+ * The bucket is versioned so that deletes can target the exact object version whose age was checked: storing
+ * an existing content writes a new version, which a concurrent delete of the old version leaves in place.
+ */
+@Component
+@ConditionalOnProperty(name = "application.images.store.type", havingValue = "minio")
+public class MinioImageStore implements ImageStore {
+    private final MinioClient client;
+    private final String bucket;
+
+    /**
+     * Constructs a new MinioImageStore, creating the bucket if it does not exist and enabling its versioning.
+     *
+     * @param endpoint  The URL of the object store.
+     * @param accessKey The access key of the object store.
+     * @param secretKey The secret key of the object store.
+     * @param bucket    The bucket holding the images.
+     * @throws IOException If the object store cannot be reached.
+     */
+    public MinioImageStore(
+            @Value("${application.images.store.minio.endpoint}") String endpoint,
+            @Value("${application.images.store.minio.access-key}") String accessKey,
+            @Value("${application.images.store.minio.secret-key}") String secretKey,
+            @Value("${application.images.store.minio.bucket:images}") String bucket
+    ) throws IOException {
+        this.client = MinioClient.builder().endpoint(endpoint).credentials(accessKey, secretKey).build();
+        this.bucket = bucket;
+        try {
+            if (!client.bucketExists(BucketExistsArgs.builder().bucket(bucket).build()))
+                client.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+            client.setBucketVersioning(SetBucketVersioningArgs.builder()
+                    .bucket(bucket)
+                    .config(new VersioningConfiguration(VersioningConfiguration.Status.ENABLED, null))
+                    .build());
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public StoredBlob put(InputStream content) throws IOException {
+        var tmpFile = Files.createTempFile("image-upload", null);
+        try {
+            var digest = sha256();
+            long size;
+            try (var out = new DigestOutputStream(Files.newOutputStream(tmpFile), digest)) {
+                size = content.transferTo(out);
+            }
+            var key = HexFormat.of().formatHex(digest.digest());
+            var stat = stat(key);
+            if (stat != null && touch(key, stat.versionId()))
+                return new StoredBlob(key, size);
+            try (var in = Files.newInputStream(tmpFile)) {
+                client.putObject(PutObjectArgs.builder().bucket(bucket).object(key).stream(in, size, -1).build());
+            } catch (MinioException | GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+            return new StoredBlob(key, size);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return client.getObject(GetObjectArgs.builder().bucket(bucket).object(key).build());
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void transferTo(String key, long position, long count, OutputStream out) throws IOException {
+        var args = GetObjectArgs.builder().bucket(bucket).object(key).offset(position);
+        if (count != Long.MAX_VALUE)
+            args.length(count);
+        try (var in = client.getObject(args.build())) {
+            in.transferTo(out);
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public Optional<Path> file(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Stream<StoredEntry> list() {
+        var results = client.listObjects(ListObjectsArgs.builder().bucket(bucket).recursive(true).build());
+        return StreamSupport.stream(results.spliterator(), false).map(result -> {
+            try {
+                var item = result.get();
+                return new StoredEntry(item.objectName(), item.lastModified().toInstant());
+            } catch (MinioException | GeneralSecurityException | IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The object store has no conditional delete, so only the version whose modification time was checked is
+     * removed. If the content was stored again in the meantime, its newer version is kept and false is returned.
+     */
+    @Override
+    public boolean deleteIfUnmodifiedSince(String key, Instant cutoff) throws IOException {
+        var stat = stat(key);
+        if (stat == null || !stat.lastModified().toInstant().isBefore(cutoff))
+            return false;
+        removeVersion(key, stat.versionId());
+        return stat(key) == null;
+    }
+
+    /**
+     * Refreshes the modification time of the object by copying the given version onto a new version,
+     * then removes the given version so that stored contents do not pile up versions.
+     *
+     * @param key       The key of the content.
+     * @param versionId The version of the object to copy.
+     * @return true if the object was refreshed, false if the version was deleted before it could be copied.
+     * @throws IOException If the object store cannot be reached.
+     */
+    private boolean touch(String key, String versionId) throws IOException {
+        try {
+            client.copyObject(CopyObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(key)
+                    .source(CopySource.builder().bucket(bucket).object(key).versionId(versionId).build())
+                    .metadataDirective(Directive.REPLACE)
+                    .build());
+        } catch (ErrorResponseException e) {
+            if (isMissing(e))
+                return false;
+            throw new IOException(e);
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        removeVersion(key, versionId);
+        return true;
+    }
+
+    /**
+     * Reads the metadata of the current version of an object.
+     *
+     * @param key The key of the content.
+     * @return The metadata of the object, or null if it does not exist.
+     * @throws IOException If the object store cannot be reached.
+     */
+    private StatObjectResponse stat(String key) throws IOException {
+        try {
+            return client.statObject(StatObjectArgs.builder().bucket(bucket).object(key).build());
+        } catch (ErrorResponseException e) {
+            if (isMissing(e))
+                return null;
+            throw new IOException(e);
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Permanently removes a single version of an object, leaving any other version in place.
+     *
+     * @param key       The key of the content.
+     * @param versionId The version of the object to remove.
+     * @throws IOException If the object store cannot be reached.
+     */
+    private void removeVersion(String key, String versionId) throws IOException {
+        try {
+            client.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(key).versionId(versionId).build());
+        } catch (ErrorResponseException e) {
+            if (!isMissing(e))
+                throw new IOException(e);
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Checks if an error response reports that the object or its version does not exist.
+     *
+     * @param e The error response.
+     * @return true if the object or version is missing, false otherwise.
+     */
+    private static boolean isMissing(ErrorResponseException e) {
+        var code = e.errorResponse().code();
+        return "NoSuchKey".equals(code) || "NoSuchVersion".equals(code);
+    }
+}
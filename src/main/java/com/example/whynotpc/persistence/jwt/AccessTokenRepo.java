@@ -1,9 +1,12 @@
 package com.example.whynotpc.persistence.jwt;
 
 import com.example.whynotpc.models.jwt.AccessToken;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,18 +15,50 @@ import java.util.Optional;
  */
 public interface AccessTokenRepo extends JpaRepository<AccessToken, Long> {
     /**
-     * Finds an access token by its token string.
-     * @param token The token string to find.
+     * Finds an access token by the digest of its token string.
+     * @param tokenHash The SHA-256 digest of the token string to find.
      * @return Optional containing the access token if found, or empty if not found.
      */
-    Optional<AccessToken> findByToken(String token);
+    Optional<AccessToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Checks if an access token with the given token string digest exists.
+     * @param tokenHash The SHA-256 digest of the token string to check.
+     * @return true if such an access token exists, false otherwise.
+     */
+    boolean existsByTokenHash(String tokenHash);
+
+    /**
+     * Retrieves all access tokens for a user.
+     * @param userId The ID of the user.
+     * @return list of access tokens belonging to the user.
+     */
+    List<AccessToken> findAllByUserId(Long userId);
 
     /**
      * Retrieves all access tokens for a user except the current one.
+     * The current token is matched by digest, which every token has, including those issued without a token id.
      * @param userId The ID of the user.
-     * @param currToken The token string of the current access token to exclude.
+     * @param currTokenHash The SHA-256 digest of the current access token string to exclude.
      * @return list of access tokens belonging to the user except the current one.
      */
-    @Query("SELECT a FROM AccessToken a WHERE a.user.id = :userId AND a.token != :currToken")
-    List<AccessToken> getAllByUserIdExceptCurrent(Long userId, String currToken);
+    @Query("SELECT a FROM AccessToken a WHERE a.user.id = :userId AND (a.tokenHash IS NULL OR a.tokenHash <> :currTokenHash)")
+    List<AccessToken> getAllByUserIdExceptCurrent(Long userId, String currTokenHash);
+
+    /**
+     * Deletes a batch of access tokens that expired before the given time.
+     * Tokens still referenced by a refresh token are kept until that refresh token is deleted.
+     * @param now The time to compare expirations against.
+     * @param batchSize The maximum number of tokens to delete.
+     * @return number of deleted tokens.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM access_tokens WHERE id IN (
+                SELECT a.id FROM access_tokens a
+                WHERE a.expires_at < :now
+                AND NOT EXISTS (SELECT 1 FROM refresh_tokens r WHERE r.access_token_id = a.id)
+                LIMIT :batchSize)""", nativeQuery = true)
+    int deleteExpiredBatch(LocalDateTime now, int batchSize);
 }
@@ -1,8 +1,12 @@
 package com.example.whynotpc.persistence.jwt;
 
 import com.example.whynotpc.models.jwt.RefreshToken;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -10,9 +14,22 @@ import java.util.Optional;
  */
 public interface RefreshTokenRepo extends JpaRepository<RefreshToken, Long> {
     /**
-     * Finds a refresh token by its token string.
-     * @param token The token string to find.
+     * Finds a refresh token by the digest of its token string.
+     * @param tokenHash The SHA-256 digest of the token string to find.
      * @return Optional containing the refresh token if found, or empty if not found.
      */
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Deletes a batch of refresh tokens that expired before the given time.
+     * @param now The time to compare expirations against.
+     * @param batchSize The maximum number of tokens to delete.
+     * @return number of deleted tokens.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM refresh_tokens WHERE id IN (
+                SELECT id FROM refresh_tokens WHERE expires_at < :now LIMIT :batchSize)""", nativeQuery = true)
+    int deleteExpiredBatch(LocalDateTime now, int batchSize);
 }
@@ -1,9 +1,14 @@
 package com.example.whynotpc.persistence.orders;
 
+import com.example.whynotpc.models.dto.ProductPopularityDTO;
 import com.example.whynotpc.models.order.OrderItem;
+import com.example.whynotpc.models.order.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Repository interface for managing order item entities.
  */
@@ -17,4 +22,14 @@ public interface OrderItemRepo extends JpaRepository<OrderItem, Long> {
      * @return order item if found, or null if not found.
      */
     OrderItem findByOrderIdAndProductId(Long orderId, Long productId);
+
+    /**
+     * Sums the ordered quantities of every product over the orders with the given status.
+     *
+     * @param status The status of the orders to count.
+     * @return list of ordered quantities, one per product ordered at least once.
+     */
+    @Query("SELECT new com.example.whynotpc.models.dto.ProductPopularityDTO(i.product.id, SUM(i.quantity)) " +
+            "FROM OrderItem i WHERE i.order.status = :status GROUP BY i.product.id")
+    List<ProductPopularityDTO> sumQuantitiesByProduct(OrderStatus status);
 }
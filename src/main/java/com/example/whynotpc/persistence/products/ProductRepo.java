@@ -1,33 +1,125 @@
 package com.example.whynotpc.persistence.products;
 
+import com.example.whynotpc.models.dto.ProductDTO;
 import com.example.whynotpc.models.product.Category;
 import com.example.whynotpc.models.product.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Repository interface for managing product entities.
  */
 @Repository
-public interface ProductRepo extends JpaRepository<Product, Long> {
+public interface ProductRepo extends JpaRepository<Product, Long>, ProductSeekRepo {
+    /**
+     * Query selecting products as DTOs, reading the category name and the image version through joins
+     * in the same query.
+     */
+    String SELECT_DTO = "SELECT new com.example.whynotpc.models.dto.ProductDTO(" +
+            "p.id, p.title, p.price, p.imgName, c.name, i.contentHash) " +
+            "FROM Product p JOIN p.category c LEFT JOIN Image i ON i.name = p.imgName";
+
+    /**
+     * Finds all products as DTOs.
+     *
+     * @return list of product DTOs.
+     */
+    @Query(SELECT_DTO)
+    List<ProductDTO> findAllProjected();
+
+    /**
+     * Finds all products belonging to a specific category as DTOs.
+     *
+     * @param category The category to which the products belong.
+     * @return list of DTOs of the products belonging to the specified category.
+     */
+    @Query(SELECT_DTO + " WHERE c = :category")
+    List<ProductDTO> findAllProjectedByCategory(Category category);
+
+    /**
+     * Finds a page of products as DTOs.
+     *
+     * @param pageable Page request configuration for pagination.
+     * @return page of product DTOs.
+     */
+    @Query(value = SELECT_DTO, countQuery = "SELECT count(p) FROM Product p")
+    Page<ProductDTO> findPageProjected(Pageable pageable);
+
+    /**
+     * Finds a page of products belonging to a specific category as DTOs.
+     *
+     * @param category The category to which the products belong.
+     * @param pageable Page request configuration for pagination.
+     * @return page of DTOs of the products belonging to the specified category.
+     */
+    @Query(value = SELECT_DTO + " WHERE c = :category",
+            countQuery = "SELECT count(p) FROM Product p WHERE p.category = :category")
+    Page<ProductDTO> findPageProjectedByCategory(Category category, Pageable pageable);
+
+    /**
+     * Finds a product by its id as a DTO.
+     *
+     * @param id The id of the product.
+     * @return Optional containing the product DTO if found, or empty if not found.
+     */
+    @Query(SELECT_DTO + " WHERE p.id = :id")
+    Optional<ProductDTO> findProjectedById(Long id);
+
+    /**
+     * Finds the products with the given ids as DTOs.
+     *
+     * @param ids The ids of the products.
+     * @return list of DTOs of the products found, in no particular order.
+     */
+    @Query(SELECT_DTO + " WHERE p.id IN :ids")
+    List<ProductDTO> findAllProjectedByIdIn(Collection<Long> ids);
+
+    /**
+     * Streams all products as DTOs in id order.
+     * Rows are fetched from the database cursor in chunks, and no entities are kept in the persistence context,
+     * so memory use does not grow with the catalog. The stream must be consumed within a transaction and closed.
+     *
+     * @return stream of product DTOs.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + " ORDER BY p.id")
+    Stream<ProductDTO> streamAll();
+
+    /**
+     * Streams all products belonging to a specific category as DTOs in id order, like {@link #streamAll()}.
+     *
+     * @param category The category to which the products belong.
+     * @return stream of product DTOs.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + " WHERE c = :category ORDER BY p.id")
+    Stream<ProductDTO> streamAllByCategory(Category category);
+
     /**
-     * Finds all products belonging to a specific category.
+     * Counts the products belonging to a specific category.
      *
      * @param category The category to which the products belong.
-     * @return list of products belonging to the specified category.
+     * @return number of products belonging to the specified category.
      */
-    List<Product> findAllByCategory(Category category);
+    long countByCategory(Category category);
 
     /**
-     * Finds a page of products belonging to a specific category.
+     * Counts the products referencing the image with the given name.
      *
-     * @param category     The category to which the products belong.
-     * @param pageRequest  Page request configuration for pagination.
-     * @return page of products belonging to the specified category.
+     * @param imgName The name of the image.
+     * @return number of products referencing the image.
      */
-    Page<Product> findPageByCategory(Category category, PageRequest pageRequest);
+    long countByImgName(String imgName);
 }
@@ -0,0 +1,25 @@
+package com.example.whynotpc.persistence.products;
+
+import com.example.whynotpc.models.dto.ProductDTO;
+import com.example.whynotpc.models.product.Category;
+
+import java.util.List;
+
+/**
+ * Repository fragment finding pages of products by seeking past the last product of the previous page.
+ */
+public interface ProductSeekRepo {
+    /**
+     * Finds the products following the given sort key, in the order of the given field and then of the id.
+     * Each page starts at its key in the (category, field, id) index, so deep pages cost as much as the first.
+     *
+     * @param category   The category to which the products belong, or null for all products.
+     * @param sort       The field to sort by, "id", "price" or "title".
+     * @param descending Whether the products are sorted in descending order.
+     * @param lastValue  The sort field value of the last product of the previous page, ignored when sorting by id.
+     * @param lastId     The id of the last product of the previous page, or null for the first page.
+     * @param limit      The maximum number of products to find.
+     * @return list of DTOs of the products following the given sort key.
+     */
+    List<ProductDTO> findSeekPage(Category category, String sort, boolean descending, Object lastValue, Long lastId, int limit);
+}
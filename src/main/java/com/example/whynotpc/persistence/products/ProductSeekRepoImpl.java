@@ -0,0 +1,54 @@
+package com.example.whynotpc.persistence.products;
+
+import com.example.whynotpc.models.dto.ProductDTO;
+import com.example.whynotpc.models.product.Category;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of the product seek repository fragment, comparing the (field, id) sort key as a row value
+ * so that the database can start the index scan right at the key.
+ */
+@RequiredArgsConstructor
+public class ProductSeekRepoImpl implements ProductSeekRepo {
+    private static final Set<String> SORTS = Set.of("id", "price", "title");
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<ProductDTO> findSeekPage(Category category, String sort, boolean descending, Object lastValue, Long lastId, int limit) {
+        if (!SORTS.contains(sort))
+            throw new IllegalArgumentException("Sorting by " + sort + " not supported, supported fields: " + SORTS);
+        var direction = descending ? " DESC" : " ASC";
+        var comparison = descending ? " < " : " > ";
+        boolean byId = sort.equals("id");
+
+        var conditions = new ArrayList<String>();
+        if (category != null)
+            conditions.add("c = :category");
+        if (lastId != null)
+            conditions.add(byId ? "p.id" + comparison + ":lastId"
+                    : "(p." + sort + ", p.id)" + comparison + "(:lastValue, :lastId)");
+
+        var hql = new StringBuilder(ProductRepo.SELECT_DTO);
+        if (!conditions.isEmpty())
+            hql.append(" WHERE ").append(String.join(" AND ", conditions));
+        hql.append(" ORDER BY p.").append(sort).append(direction);
+        if (!byId)
+            hql.append(", p.id").append(direction);
+
+        var query = entityManager.createQuery(hql.toString(), ProductDTO.class).setMaxResults(limit);
+        if (category != null)
+            query.setParameter("category", category);
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+            if (!byId)
+                query.setParameter("lastValue", lastValue);
+        }
+        return query.getResultList();
+    }
+}
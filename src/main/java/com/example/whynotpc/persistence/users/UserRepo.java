@@ -25,4 +25,12 @@ public interface UserRepo extends JpaRepository<User, Long> {
      * @return Optional containing the user with the specified email address, or empty if not found.
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Counts the users referencing the image with the given name as their profile picture.
+     *
+     * @param profilePicName The name of the image.
+     * @return number of users referencing the image.
+     */
+    long countByProfilePicName(String profilePicName);
 }
@@ -16,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,6 +26,7 @@ import java.time.LocalDateTime;
 import static com.example.whynotpc.models.response.AuthResponse.ok;
 import static com.example.whynotpc.utils.CookieUtils.createJwtCookie;
 import static com.example.whynotpc.utils.CookieUtils.extractTokenFromCookie;
+import static com.example.whynotpc.utils.HashUtils.sha256Hex;
 import static com.example.whynotpc.utils.StrChecker.isNullOrBlank;
 
 /**
@@ -40,6 +42,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AccessTokenRepo accessTokenRepo;
     private final RefreshTokenRepo refreshTokenRepo;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Retrieves the user associated with the given JWT token.
@@ -49,20 +52,18 @@ public class AuthService {
      * @throws NoAuthenticationException if no user is found for the given JWT token
      */
     private User getUserByJwt(String jwt) {
-        var accessToken = accessTokenRepo.findByToken(jwt).orElse(null);
-        var refreshToken = refreshTokenRepo.findByToken(jwt).orElse(null);
-        if (accessToken == null && refreshToken == null)
+        var tokenHash = sha256Hex(jwt);
+        if (!accessTokenRepo.existsByTokenHash(tokenHash) && refreshTokenRepo.findByTokenHash(tokenHash).isEmpty())
             throw new NoAuthenticationException();
 
-        String username;
-        if (accessToken != null) username = jwtService.getUsername(accessToken.getToken());
-        else username = jwtService.getUsername(refreshToken.getToken());
-
+        String username = jwtService.getUsername(jwt);
         return userService.findByUsername(username).orElseThrow(NoAuthenticationException::new);
     }
 
     /**
      * Saves the access token along with the associated refresh token and user in the database.
+     * A new refresh token is inserted together with the access token.
+     * Only the digest and the id of the token are stored. The token is remembered as valid.
      *
      * @param jwt          The access token JWT
      * @param user         The user associated with the access token
@@ -70,15 +71,20 @@ public class AuthService {
      * @param accessToken  The existing access token (if any)
      */
     private void saveAccessToken(String jwt, User user, RefreshToken refreshToken, AccessToken accessToken) {
+        var claims = jwtService.validate(jwt);
         var token = AccessToken.builder()
-                .token(jwt)
+                .tokenHash(sha256Hex(jwt))
+                .tokenId(claims.id())
+                .expiresAt(claims.expiresAt())
                 .user(user)
+                .refreshToken(refreshToken)
                 .build();
         refreshToken.setAccessToken(token);
         if (accessToken != null)
             token.setId(accessToken.getId());
 
         accessTokenRepo.save(token);
+        tokenRevocationService.remember(claims);
     }
 
     /**
@@ -97,38 +103,35 @@ public class AuthService {
 
     /**
      * Authenticates a user based on the provided credentials and generates access and refresh tokens.
+     * The authenticated principal is reused, and the token pair is stored in a single transaction.
+     * Tokens are unique by their random token id, so they are not checked against the stored ones.
      *
      * @param userDTO  The UserDTO containing user credentials
      * @param response The HttpServletResponse to set cookies in
      * @return AuthResponse indicating the success of the login process
      * @throws NoAuthenticationException if authentication fails
      */
+    @Transactional
     public AuthResponse login(UserDTO userDTO, HttpServletResponse response) {
         String usernameOrEmail = isNullOrBlank(userDTO.username()) ? userDTO.email() : userDTO.username();
+        Authentication authentication;
         try {
-            authManager.authenticate(
+            authentication = authManager.authenticate(
                     new UsernamePasswordAuthenticationToken(usernameOrEmail, userDTO.password()));
         } catch (BadCredentialsException exception) {
             throw new NoAuthenticationException("Bad credentials");
         }
-        var user = userService
-                .findByUsername(usernameOrEmail)
-                .orElseGet(
-                        () -> userService.findByEmail(usernameOrEmail)
-                                .orElseThrow(NoAuthenticationException::new)
-                );
+        if (!(authentication.getPrincipal() instanceof User user))
+            throw new NoAuthenticationException();
+
         String accessJwt = jwtService.generateToken(user);
         String refreshJwt = jwtService.generateRefreshToken(user);
-        var accessToken = accessTokenRepo.findByToken(accessJwt).orElse(null);
-        var refreshToken = refreshTokenRepo.findByToken(refreshJwt).orElse(null);
-        if (accessToken != null || refreshToken != null) {
-            accessJwt = jwtService.generateToken(user);
-            refreshJwt = jwtService.generateRefreshToken(user);
-        }
-        refreshToken = refreshTokenRepo.save(
-                RefreshToken.builder()
-                        .token(refreshJwt)
-                        .build());
+        var refreshClaims = jwtService.validate(refreshJwt);
+        var refreshToken = RefreshToken.builder()
+                .tokenHash(sha256Hex(refreshJwt))
+                .tokenId(refreshClaims.id())
+                .expiresAt(refreshClaims.expiresAt())
+                .build();
         saveAccessToken(accessJwt, user, refreshToken, null);
 
         response.addCookie(createJwtCookie(accessJwt, "access_token"));
@@ -147,9 +150,12 @@ public class AuthService {
         var accessJwt = extractTokenFromCookie(request, "access_token");
         var refreshJwt = extractTokenFromCookie(request, "refresh_token");
         var user = getUserByJwt(refreshJwt);
-        var refreshToken = refreshTokenRepo.findByToken(refreshJwt).orElseThrow(NoAuthenticationException::new);
-        var oldAccessToken = accessTokenRepo.findByToken(accessJwt).orElse(null);
+        var refreshToken = refreshTokenRepo.findByTokenHash(sha256Hex(refreshJwt))
+                .orElseThrow(NoAuthenticationException::new);
+        var oldAccessToken = accessTokenRepo.findByTokenHash(sha256Hex(accessJwt)).orElse(null);
         var newAccessJwt = jwtService.generateToken(user);
+        if (oldAccessToken != null)
+            tokenRevocationService.revoke(oldAccessToken);
 
         saveAccessToken(newAccessJwt, user, refreshToken, oldAccessToken);
         response.addCookie(createJwtCookie(newAccessJwt, "access_token"));
@@ -157,14 +163,17 @@ public class AuthService {
     }
 
     /**
-     * Logs out the user by deleting the access token associated with their session.
+     * Logs out the user by revoking and deleting the access token associated with their session.
      *
      * @param request The HttpServletRequest containing the access token
      * @return AuthResponse indicating the success of the logout process
      */
     public AuthResponse logout(HttpServletRequest request) {
         var accessJwt = extractTokenFromCookie(request, "access_token");
-        accessTokenRepo.findByToken(accessJwt).ifPresent(accessTokenRepo::delete);
+        accessTokenRepo.findByTokenHash(sha256Hex(accessJwt)).ifPresent(token -> {
+            tokenRevocationService.revoke(token);
+            accessTokenRepo.delete(token);
+        });
         return ok();
     }
 
@@ -176,7 +185,8 @@ public class AuthService {
      */
     private void terminateOtherSessions(Long userId, HttpServletRequest request) {
         var currentJwt = extractTokenFromCookie(request, "access_token");
-        var tokens = accessTokenRepo.getAllByUserIdExceptCurrent(userId, currentJwt);
+        var tokens = accessTokenRepo.getAllByUserIdExceptCurrent(userId, sha256Hex(currentJwt));
+        tokenRevocationService.revokeAll(tokens);
         accessTokenRepo.deleteAll(tokens);
     }
 
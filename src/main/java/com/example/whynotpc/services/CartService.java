@@ -8,7 +8,6 @@ import com.example.whynotpc.persistence.orders.OrderItemRepo;
 import com.example.whynotpc.persistence.orders.OrderRepo;
 import com.example.whynotpc.persistence.products.ProductRepo;
 import com.example.whynotpc.utils.NoAuthenticationException;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
@@ -31,6 +30,7 @@ public class CartService {
     private final EmailService emailService;
     private final ProductRepo productRepo;
     private final OrderItemRepo orderItemRepo;
+    private final ProductSuggestService productSuggestService;
 
     /**
      * Retrieves the user associated with the provided authentication.
@@ -116,11 +116,7 @@ public class CartService {
                 .append("</h3>")
                 .append("<h4>Best regards,<br/>WHYNOTPC</h4></div>");
 
-        try {
-            emailService.sendMail(user.getEmail(), sb.toString());
-        } catch (MessagingException ex) {
-            System.out.println(ex.getMessage());
-        }
+        emailService.sendMail(user.getEmail(), sb.toString());
 
         cart.setStatus(COMPLETED);
         cart = orderRepo.save(Order.builder()
@@ -129,6 +125,7 @@ public class CartService {
                 .items(Collections.emptyList())
                 .user(user)
                 .build());
+        productSuggestService.record(items);
 
         return ok(cart);
     }
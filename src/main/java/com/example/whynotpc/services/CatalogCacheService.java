@@ -0,0 +1,210 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.response.BasicResponse;
+import com.example.whynotpc.models.response.EncodedResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.example.whynotpc.utils.TransactionUtils.afterCommit;
+
+/**
+ * Service class caching storefront catalog responses in memory, keyed by the query parameters.
+ * Responses are kept serialized to JSON and gzip-compressed, so that hits are served without running
+ * the serializer or the compressor again.
+ * Each product entry records the category its products were filtered by, so that a product write only evicts
+ * the responses listing its category and the unfiltered ones. Category writes evict everything, since
+ * they change how category names resolve.
+ * Concurrent misses on the same key share a single load.
+ * Every invalidation bumps a generation stamp once the write is committed, and a load that started before
+ * the stamp moved is served to its caller but not kept, since it may have read the data as it was before.
+ */
+@Service
+public class CatalogCacheService {
+    private static final String[] SHAPES = {"all", "category", "page", "category_page", "categories"};
+
+    private final ObjectMapper objectMapper;
+    private final Cache<CatalogKey, CachedResponse> responses;
+    private final Map<String, Counter> hits = new HashMap<>();
+    private final Map<String, Counter> misses = new HashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructs a new CatalogCacheService.
+     *
+     * @param objectMapper  Mapper serializing the responses, the same one used for other responses
+     * @param meterRegistry Registry the cache metrics are published to
+     * @param maximumSize   Maximum number of catalog responses kept in memory
+     * @param ttl           Time after which a catalog response is reloaded, bounding staleness across instances
+     */
+    public CatalogCacheService(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${application.catalog.cache.maximum-size:1000}") long maximumSize,
+            @Value("${application.catalog.cache.ttl:5m}") Duration ttl
+    ) {
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "catalog");
+        for (var shape : SHAPES) {
+            hits.put(shape, meterRegistry.counter("catalog.cache.requests", "shape", shape, "result", "hit"));
+            misses.put(shape, meterRegistry.counter("catalog.cache.requests", "shape", shape, "result", "miss"));
+        }
+    }
+
+    /**
+     * Retrieves the encoded catalog response for the given query, loading and encoding it on a miss.
+     * Failed loads are not cached, and neither are loads overlapping an invalidation.
+     *
+     * @param key    The query parameters
+     * @param loader Function loading the response along with the category it was filtered by
+     * @return encoded catalog response
+     */
+    public EncodedResponse get(CatalogKey key, Supplier<CatalogEntry> loader) {
+        long stamp = generation.get();
+        var loaded = new CachedResponse[1];
+        var cached = responses.get(key, ignored -> {
+            loaded[0] = encode(loader.get());
+            return generation.get() == stamp ? loaded[0] : null;
+        });
+        (loaded[0] != null ? misses : hits).get(key.shape()).increment();
+        if (cached == null)
+            return loaded[0].response();
+        // An invalidation may have run its eviction between the check above and the insertion
+        if (cached == loaded[0] && generation.get() != stamp)
+            responses.asMap().remove(key, cached);
+        return cached.response();
+    }
+
+    /**
+     * Evicts the responses listing products of any of the given categories, including the unfiltered ones.
+     * Within a transaction, eviction is deferred until it commits, and loads still in flight at that point
+     * are not kept, so that no concurrent load can cache the data as it was before the transaction.
+     *
+     * @param categories The names of the categories whose products changed
+     */
+    public void invalidateCategories(Collection<String> categories) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            responses.asMap().entrySet().removeIf(entry -> entry.getKey().products()
+                    && (entry.getValue().category() == null || categories.contains(entry.getValue().category())));
+        });
+    }
+
+    /**
+     * Evicts all catalog responses, deferred until commit within a transaction.
+     * Loads still in flight at that point are not kept.
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            responses.invalidateAll();
+        });
+    }
+
+    /**
+     * Serializes the loaded response to JSON.
+     *
+     * @param entry The loaded response along with the category it was filtered by
+     * @return cached encoded response
+     */
+    private CachedResponse encode(CatalogEntry entry) {
+        try {
+            var json = objectMapper.writeValueAsBytes(entry.response());
+            return new CachedResponse(entry.category(), EncodedResponse.of(entry.response().getStatusCode(), json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Query parameters of a catalog request.
+     *
+     * @param resource The listed resource, "products" or "categories"
+     * @param category The category name, may be null
+     * @param page     The page number, may be null
+     * @param sort     The field to sort by, may be null
+     * @param order    The sorting order, may be null
+     */
+    public record CatalogKey(String resource, String category, Integer page, String sort, String order) {
+        /**
+         * Creates the key of a product listing.
+         *
+         * @param category The category name, may be null
+         * @param page     The page number, may be null
+         * @param sort     The field to sort by, may be null
+         * @param order    The sorting order, may be null
+         * @return key of the product listing
+         */
+        public static CatalogKey products(String category, Integer page, String sort, String order) {
+            return new CatalogKey("products", category, page, sort, order);
+        }
+
+        /**
+         * Creates the key of the category listing.
+         *
+         * @return key of the category listing
+         */
+        public static CatalogKey categories() {
+            return new CatalogKey("categories", null, null, null, null);
+        }
+
+        /**
+         * Checks if the key lists products.
+         *
+         * @return true if the key lists products, false otherwise
+         */
+        boolean products() {
+            return resource.equals("products");
+        }
+
+        /**
+         * Retrieves the shape of the query, used to tag the hit and miss counters.
+         *
+         * @return "all", "category", "page", "category_page" or "categories"
+         */
+        String shape() {
+            if (!products())
+                return resource;
+            boolean paged = page != null || sort != null;
+            if (category == null)
+                return paged ? "page" : "all";
+            return paged ? "category_page" : "category";
+        }
+    }
+
+    /**
+     * Loaded catalog response.
+     *
+     * @param category The name of the category the products were filtered by, or null if unfiltered
+     * @param response The response
+     */
+    public record CatalogEntry(String category, BasicResponse response) {
+    }
+
+    /**
+     * Cached catalog response.
+     *
+     * @param category The name of the category the products were filtered by, or null if unfiltered
+     * @param response The encoded response
+     */
+    private record CachedResponse(String category, EncodedResponse response) {
+    }
+}
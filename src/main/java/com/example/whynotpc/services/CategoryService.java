@@ -3,7 +3,10 @@ package com.example.whynotpc.services;
 import com.example.whynotpc.models.product.Category;
 import com.example.whynotpc.models.response.BasicResponse;
 import com.example.whynotpc.models.response.CategoryResponse;
+import com.example.whynotpc.models.response.EncodedResponse;
 import com.example.whynotpc.persistence.products.CategoryRepo;
+import com.example.whynotpc.services.CatalogCacheService.CatalogEntry;
+import com.example.whynotpc.services.CatalogCacheService.CatalogKey;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +27,9 @@ import static com.example.whynotpc.utils.StrChecker.isNullOrBlank;
 @RequiredArgsConstructor
 public class CategoryService {
     private final CategoryRepo categoryRepo;
+    private final CatalogCacheService catalogCacheService;
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestService productSuggestService;
 
     /**
      * Saves a single category.
@@ -35,7 +41,10 @@ public class CategoryService {
     private Category save(Category category) {
         if (isNullOrBlank(category.getName()))
             throw new IllegalArgumentException("Category name is null or blank");
-        return categoryRepo.save(category);
+        category = categoryRepo.save(category);
+        catalogCacheService.invalidateAll();
+        productSuggestService.index(category);
+        return category;
     }
 
     /**
@@ -67,12 +76,12 @@ public class CategoryService {
     }
 
     /**
-     * Retrieves all categories.
+     * Retrieves all categories, from the catalog cache if present.
      *
-     * @return response containing all categories
+     * @return encoded response containing all categories
      */
-    public CategoryResponse readAll() {
-        return ok(categoryRepo.findAll());
+    public EncodedResponse readAll() {
+        return catalogCacheService.get(CatalogKey.categories(), () -> new CatalogEntry(null, ok(categoryRepo.findAll())));
     }
 
     /**
@@ -103,11 +112,14 @@ public class CategoryService {
             throw new IllegalArgumentException("Category name is null or blank");
         category.setName(newCategory.getName());
 
-        return ok(categoryRepo.save(category));
+        category = categoryRepo.save(category);
+        catalogCacheService.invalidateAll();
+        productSuggestService.index(category);
+        return ok(category);
     }
 
     /**
-     * Deletes a category by its name.
+     * Deletes a category by its name, along with its products.
      *
      * @param name The name of the category to delete
      * @return response indicating success
@@ -116,17 +128,23 @@ public class CategoryService {
     public BasicResponse delete(String name) {
         var category = categoryRepo.findByName(name).orElseThrow(EntityNotFoundException::new);
         categoryRepo.delete(category);
+        catalogCacheService.invalidateAll();
+        productSearchService.rebuild();
+        productSuggestService.rebuild();
 
         return noContent();
     }
 
     /**
-     * Deletes all categories.
+     * Deletes all categories, along with their products.
      *
      * @return response indicating success
      */
     public BasicResponse deleteAll() {
         categoryRepo.deleteAll();
+        catalogCacheService.invalidateAll();
+        productSearchService.rebuild();
+        productSuggestService.rebuild();
         return noContent();
     }
 }
@@ -4,6 +4,7 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -22,21 +23,25 @@ public class EmailService {
 
     /**
      * Asynchronously sends an email with the provided body to the specified recipient.
+     * The caller has returned by the time the email is sent, so a failure to send it is only reported here.
      *
      * @param receiver The email address of the recipient
      * @param body     The body of the email
-     * @throws MessagingException If an error occurs while sending the email
      */
     @Async
-    public void sendMail(String receiver, String body) throws MessagingException {
-        MimeMessage message = javaMailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+    public void sendMail(String receiver, String body) {
+        try {
+            MimeMessage message = javaMailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true);
 
-        helper.setFrom(username);
-        helper.setSubject(subject);
-        helper.setTo(receiver);
-        helper.setText(body, true);
+            helper.setFrom(username);
+            helper.setSubject(subject);
+            helper.setTo(receiver);
+            helper.setText(body, true);
 
-        javaMailSender.send(message);
+            javaMailSender.send(message);
+        } catch (MessagingException | MailException ex) {
+            System.out.println(ex.getMessage());
+        }
     }
 }
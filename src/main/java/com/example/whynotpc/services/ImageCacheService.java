@@ -0,0 +1,151 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.img.Image;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Service class caching hot images in memory: their metadata by name, and their decoded content by content hash.
+ * The content cache is bounded by the total number of bytes held and may keep the bytes off-heap
+ * in direct buffers, so that large caches do not add to garbage collection pressure.
+ * Only contents up to a maximum size are cached; larger ones are always streamed from the image store.
+ */
+@Service
+public class ImageCacheService {
+    private final Cache<String, Image> images;
+    private final Cache<String, ByteBuffer> contents;
+    private final long maximumEntrySize;
+    private final boolean offHeap;
+
+    /**
+     * Constructs a new ImageCacheService.
+     *
+     * @param meterRegistry    Registry the cache metrics are published to
+     * @param maximumImages    Maximum number of image metadata entries kept in memory
+     * @param metadataTtl      Time after which image metadata is reloaded, bounding staleness across instances
+     * @param maximumWeight    Maximum total size in bytes of the image contents kept in memory
+     * @param maximumEntrySize Maximum size in bytes of a single cached image content
+     * @param offHeap          Whether image contents are kept in direct buffers outside the heap
+     */
+    public ImageCacheService(
+            MeterRegistry meterRegistry,
+            @Value("${application.images.cache.maximum-images:10000}") long maximumImages,
+            @Value("${application.images.cache.metadata-ttl:1m}") Duration metadataTtl,
+            @Value("${application.images.cache.maximum-weight:134217728}") long maximumWeight,
+            @Value("${application.images.cache.maximum-entry-size:2097152}") long maximumEntrySize,
+            @Value("${application.images.cache.off-heap:true}") boolean offHeap
+    ) {
+        this.maximumEntrySize = maximumEntrySize;
+        this.offHeap = offHeap;
+        this.images = Caffeine.newBuilder()
+                .maximumSize(maximumImages)
+                .expireAfterWrite(metadataTtl)
+                .recordStats()
+                .build();
+        this.contents = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .<String, ByteBuffer>weigher((contentHash, content) -> content.capacity())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, images, "image_metadata");
+        CaffeineCacheMetrics.monitor(meterRegistry, contents, "image_contents");
+        meterRegistry.gauge("images.cache.resident.bytes", contents,
+                cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+    }
+
+    /**
+     * Retrieves the metadata of the image with the given name, loading it on a miss.
+     * Missing images are not cached.
+     *
+     * @param name   The name of the image
+     * @param loader Function loading the image by name, returning null if not found
+     * @return image, or null if not found
+     */
+    public Image getImage(String name, Function<String, Image> loader) {
+        return images.get(name, loader);
+    }
+
+    /**
+     * Retrieves the decoded content of the image, loading it on a miss if it is small enough to be cached.
+     *
+     * @param image  The image
+     * @param opener Function opening a stream of the decoded image content
+     * @return read-only buffer of the content, or null if the content is too large to be cached
+     */
+    public ByteBuffer getContent(Image image, ContentOpener opener) {
+        if (image.getContentLength() == null || image.getContentLength() > maximumEntrySize)
+            return null;
+        return contents.get(image.getContentHash(), contentHash -> load(image, opener)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Removes the metadata of the image with the given name.
+     *
+     * @param name The name of the image
+     */
+    public void invalidate(String name) {
+        images.invalidate(name);
+    }
+
+    /**
+     * Removes the content with the given hash.
+     *
+     * @param contentHash The SHA-256 digest of the content
+     */
+    public void invalidateContent(String contentHash) {
+        contents.invalidate(contentHash);
+    }
+
+    /**
+     * Removes all cached image metadata and contents.
+     */
+    public void invalidateAll() {
+        images.invalidateAll();
+        contents.invalidateAll();
+    }
+
+    /**
+     * Reads the whole decoded content of the image into a buffer.
+     *
+     * @param image  The image
+     * @param opener Function opening a stream of the decoded image content
+     * @return buffer holding the content
+     */
+    private ByteBuffer load(Image image, ContentOpener opener) {
+        try (var in = opener.open(image)) {
+            var data = in.readNBytes((int) maximumEntrySize + 1);
+            if (data.length > maximumEntrySize)
+                throw new IllegalStateException("Image content larger than recorded");
+            var buffer = offHeap ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+            return buffer.put(data).flip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Function opening a stream of the decoded content of an image.
+     */
+    @FunctionalInterface
+    public interface ContentOpener {
+        /**
+         * Opens a stream of the decoded content of the image.
+         *
+         * @param image The image
+         * @return stream of the content
+         * @throws IOException If the content cannot be opened
+         */
+        InputStream open(Image image) throws IOException;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.dto.ImageIngestDTO;
+import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.models.response.ImageIngestResponse;
+import com.example.whynotpc.persistence.img.ImageRepo;
+import com.example.whynotpc.utils.ExecutorUtils;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.example.whynotpc.models.response.ImageIngestResponse.created;
+import static com.example.whynotpc.models.response.ImageIngestResponse.ok;
+
+/**
+ * Service class ingesting bulk image uploads.
+ * Files are hashed, compressed and stored concurrently on a bounded pool, after which the metadata of all
+ * stored images is inserted in JDBC batches within a single transaction. If a concurrent upload takes a name
+ * in the meantime, the batch is inserted again one image at a time, so that only the conflicting files fail.
+ * Contents stored for images whose insert fails are left for the image reaper to collect.
+ * Each file gets its own result, so a failing file does not fail the whole upload.
+ */
+@Service
+public class ImageIngestService {
+    private final ImageService imageService;
+    private final ImageRepo imageRepo;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructs a new ImageIngestService.
+     *
+     * @param imageService Service used to store the image contents
+     * @param imageRepo    Repository of the image metadata
+     * @param threads      Number of threads storing images, 0 to use one per processor
+     */
+    public ImageIngestService(
+            ImageService imageService,
+            ImageRepo imageRepo,
+            @Value("${application.images.ingest.threads:0}") int threads
+    ) {
+        this.imageService = imageService;
+        this.imageRepo = imageRepo;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = ExecutorUtils.newBoundedPool("image-ingest", poolSize, poolSize * 2,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Ingests the uploaded files. Files named like an existing image or an earlier file of the batch
+     * are rejected as conflicts without being stored. When the pool is saturated, the request thread
+     * stores files itself, which throttles the submission of further files.
+     *
+     * @param files The array of multipart files containing the image data
+     * @return response holding the result of every file, with status 201 if any image was created
+     */
+    public ImageIngestResponse ingest(MultipartFile[] files) {
+        var results = new ImageIngestDTO[files.length];
+        var names = new String[files.length];
+        for (int i = 0; i < files.length; i++)
+            names[i] = files[i].getOriginalFilename() == null ? null : ImageService.getName(files[i]);
+        var takenNames = new HashSet<>(imageRepo.findExistingNames(
+                Arrays.stream(names).filter(Objects::nonNull).toList()));
+
+        var pending = new LinkedHashMap<Integer, CompletableFuture<Image>>();
+        for (int i = 0; i < files.length; i++) {
+            if (names[i] == null) {
+                results[i] = ImageIngestDTO.rejected(null, "failed", "Missing file name");
+            } else if (!takenNames.add(names[i])) {
+                results[i] = ImageIngestDTO.rejected(names[i], "conflict", "Image name already taken");
+            } else {
+                var file = files[i];
+                pending.put(i, CompletableFuture.supplyAsync(() -> imageService.store(file), executor));
+            }
+        }
+
+        var stored = new LinkedHashMap<Integer, Image>();
+        pending.forEach((i, future) -> {
+            try {
+                stored.put(i, future.join());
+            } catch (CompletionException e) {
+                var cause = e.getCause() == null ? e : e.getCause();
+                results[i] = ImageIngestDTO.rejected(names[i], "failed", cause.getMessage());
+            }
+        });
+        if (stored.isEmpty())
+            return ok(List.of(results));
+
+        var hashes = stored.values().stream().map(Image::getContentHash).toList();
+        var knownHashes = new HashSet<>(imageRepo.findExistingContentHashes(hashes));
+        var saved = save(stored);
+        stored.forEach((i, image) -> results[i] = saved.contains(i)
+                ? new ImageIngestDTO(image.getName(), "created", image.getId(), image.getContentHash(),
+                        !knownHashes.add(image.getContentHash()), null)
+                : ImageIngestDTO.rejected(image.getName(), "conflict", "Image name already taken"));
+        return saved.isEmpty() ? ok(List.of(results)) : created(List.of(results));
+    }
+
+    /**
+     * Inserts the metadata of the stored images in a single batch. If the batch violates a constraint,
+     * the images are inserted again one by one, skipping the ones still violating it.
+     *
+     * @param stored The stored images, by position in the upload
+     * @return positions of the inserted images
+     */
+    private Set<Integer> save(Map<Integer, Image> stored) {
+        try {
+            imageRepo.saveAll(stored.values());
+            return stored.keySet();
+        } catch (DataIntegrityViolationException e) {
+            var saved = new HashSet<Integer>();
+            stored.forEach((i, image) -> {
+                // Ids assigned to the failed batch were never inserted
+                image.setId(null);
+                try {
+                    imageRepo.save(image);
+                    saved.add(i);
+                } catch (DataIntegrityViolationException conflict) {
+                    // Left out of the saved positions, so it is reported as a conflict
+                }
+            });
+            return saved;
+        }
+    }
+
+    /**
+     * Stops the ingestion threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.persistence.img.ImageRepo;
+import com.example.whynotpc.persistence.img.ImageStore;
+import com.example.whynotpc.persistence.img.ImageStore.StoredEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Service class periodically deleting stored image contents no image references anymore.
+ * Contents are only collected once they have not been written for a grace period, checked again when deleting,
+ * so that a content stored by an upload whose metadata is not saved yet is never deleted underneath it.
+ */
+@Service
+public class ImageReaperService {
+    private final ImageStore imageStore;
+    private final ImageRepo imageRepo;
+    private final ImageCacheService imageCacheService;
+    private final ImageVariantService imageVariantService;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final Counter reapedImages;
+
+    /**
+     * Constructs a new ImageReaperService.
+     *
+     * @param imageStore          Store holding the image contents
+     * @param imageRepo           Repository of the image metadata
+     * @param imageCacheService   Service caching image contents in memory
+     * @param imageVariantService Service keeping the resized variants of image contents
+     * @param meterRegistry       Registry the reaper metrics are published to
+     * @param gracePeriod         Time since its last write before an unreferenced content is deleted
+     * @param batchSize           Maximum number of contents checked per query
+     */
+    public ImageReaperService(
+            ImageStore imageStore,
+            ImageRepo imageRepo,
+            ImageCacheService imageCacheService,
+            ImageVariantService imageVariantService,
+            MeterRegistry meterRegistry,
+            @Value("${application.images.gc.grace-period:PT1H}") Duration gracePeriod,
+            @Value("${application.images.gc.batch-size:500}") int batchSize
+    ) {
+        this.imageStore = imageStore;
+        this.imageRepo = imageRepo;
+        this.imageCacheService = imageCacheService;
+        this.imageVariantService = imageVariantService;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.reapedImages = meterRegistry.counter("images.reaped");
+    }
+
+    /**
+     * Deletes all stored contents older than the grace period that no image references.
+     *
+     * @throws IOException If the image store cannot be listed or a content cannot be deleted
+     */
+    @Scheduled(
+            initialDelayString = "${application.images.gc.initial-delay:PT5M}",
+            fixedDelayString = "${application.images.gc.interval:PT1H}"
+    )
+    public void reapUnreferencedImages() throws IOException {
+        var cutoff = Instant.now().minus(gracePeriod);
+        var batch = new ArrayList<String>(batchSize);
+        try (var entries = imageStore.list()) {
+            var candidates = entries.filter(entry -> entry.lastModified().isBefore(cutoff))
+                    .map(StoredEntry::key)
+                    .iterator();
+            while (candidates.hasNext()) {
+                batch.add(candidates.next());
+                if (batch.size() == batchSize || !candidates.hasNext()) {
+                    reapedImages.increment(reap(batch, cutoff));
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the contents of the batch that no image references, along with their cached copies and variants.
+     * A content stored again since the cutoff is kept even if unreferenced: the upload storing it saves its
+     * image afterwards, possibly after the references were checked.
+     *
+     * @param contentHashes The SHA-256 digests of the candidate contents
+     * @param cutoff        The time the contents must not have been stored since
+     * @return number of deleted contents
+     * @throws IOException If a content cannot be deleted
+     */
+    private int reap(List<String> contentHashes, Instant cutoff) throws IOException {
+        var unreferenced = new HashSet<>(contentHashes);
+        unreferenced.removeAll(imageRepo.findExistingContentHashes(contentHashes));
+        int reaped = 0;
+        for (var contentHash : unreferenced) {
+            if (!imageStore.deleteIfUnmodifiedSince(contentHash, cutoff))
+                continue;
+            imageCacheService.invalidateContent(contentHash);
+            imageVariantService.deleteVariants(contentHash);
+            reaped++;
+        }
+        return reaped;
+    }
+}
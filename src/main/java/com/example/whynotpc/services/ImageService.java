@@ -1,25 +1,43 @@
 package com.example.whynotpc.services;
 
 import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.models.img.ImageCodec;
 import com.example.whynotpc.models.response.BasicResponse;
+import com.example.whynotpc.models.response.ImagePageResponse;
 import com.example.whynotpc.models.response.ImageResponse;
 import com.example.whynotpc.persistence.img.ImageRepo;
-import com.example.whynotpc.utils.ImageUtils;
+import com.example.whynotpc.persistence.img.ImageStore;
+import com.example.whynotpc.persistence.products.ProductRepo;
+import com.example.whynotpc.persistence.users.UserRepo;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.zip.DataFormatException;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
 
 import static com.example.whynotpc.models.response.BasicResponse.noContent;
 import static com.example.whynotpc.models.response.ImageResponse.created;
 import static com.example.whynotpc.models.response.ImageResponse.ok;
+import static com.example.whynotpc.utils.ImageUtils.HEADER_LENGTH;
+import static com.example.whynotpc.utils.ImageUtils.decode;
+import static com.example.whynotpc.utils.ImageUtils.detectCodec;
 
 /**
  * Service class responsible for handling image-related operations.
@@ -28,51 +46,149 @@ import static com.example.whynotpc.models.response.ImageResponse.ok;
 @RequiredArgsConstructor
 public class ImageService {
     private final ImageRepo imageRepo;
+    private final ImageStore imageStore;
+    private final ImageCacheService imageCacheService;
+    private final CatalogCacheService catalogCacheService;
+    private final ProductRepo productRepo;
+    private final UserRepo userRepo;
+    @Value("${application.images.deflate-level:6}")
+    private int deflateLevel;
+    @Value("${application.images.max-size:20MB}")
+    private DataSize maxSize;
+    @Value("${application.images.page-size:100}")
+    private int defaultPageSize;
+    @Value("${application.images.max-page-size:1000}")
+    private int maxPageSize;
 
     /**
-     * Saves a single image file to the database.
+     * Streams the content of the multipart file into the image store and builds the image metadata for it.
+     * The content is never held in memory as a whole: it is hashed and, for compressible formats, deflated
+     * while being copied through fixed-size buffers.
      *
      * @param file The multipart file containing the image data
-     * @return saved image
+     * @return image referencing the stored content
+     * @throws MaxUploadSizeExceededException If the file exceeds the maximum image size
      */
-    private Image save(MultipartFile file) {
-        try {
-            return imageRepo.save(Image.builder()
-                    .name(Objects.requireNonNull(file.getOriginalFilename()).replace(' ', '_'))
+    Image store(MultipartFile file) {
+        if (file.getSize() > maxSize.toBytes())
+            throw new MaxUploadSizeExceededException(maxSize.toBytes());
+        var deflater = new Deflater(deflateLevel);
+        try (InputStream content = new BufferedInputStream(file.getInputStream())) {
+            content.mark(HEADER_LENGTH);
+            var codec = detectCodec(content.readNBytes(HEADER_LENGTH), file.getContentType());
+            content.reset();
+
+            var blob = imageStore.put(codec == ImageCodec.DEFLATE ? new DeflaterInputStream(content, deflater) : content);
+            return Image.builder()
+                    .name(getName(file))
                     .type(file.getContentType())
-                    .imageData(ImageUtils.compressImage(file.getBytes()))
-                    .build());
+                    .contentHash(blob.key())
+                    .contentLength(codec == ImageCodec.DEFLATE ? file.getSize() : blob.size())
+                    .codec(codec)
+                    .updatedAt(LocalDateTime.now())
+                    .build();
         } catch (IOException e) {
-            throw new RuntimeException();
+            throw new RuntimeException(e);
+        } finally {
+            deflater.end();
         }
     }
 
     /**
-     * Creates and saves a single image from the provided multipart file.
+     * Saves a single image file to the image store and its metadata to the database.
      *
      * @param file The multipart file containing the image data
-     * @return response containing the created image
+     * @return saved image
      */
-    public ImageResponse create(MultipartFile file) {
-        var image = save(file);
-        return created(image);
+    private Image save(MultipartFile file) {
+        return imageRepo.save(store(file));
     }
 
     /**
-     * Creates and saves multiple images from the provided array of multipart files.
+     * Retrieves the name an uploaded file is stored under.
      *
-     * @param files The array of multipart files containing the image data
-     * @return response containing the created images
+     * @param file The multipart file containing the image data
+     * @return name of the image
      */
-    @Transactional
-    public ImageResponse create(MultipartFile[] files) {
-        List<Image> savedImages = new ArrayList<>();
-        Image savedImage;
-        for (var file : files) {
-            savedImage = save(file);
-            savedImages.add(savedImage);
+    static String getName(MultipartFile file) {
+        return Objects.requireNonNull(file.getOriginalFilename()).replace(' ', '_');
+    }
+
+    /**
+     * Builds a name unique to the content, for an upload whose name is taken by an image with other content.
+     *
+     * @param name        The name of the upload
+     * @param contentHash The SHA-256 digest of the uploaded content
+     * @return name including a prefix of the content digest
+     */
+    private static String getContentName(String name, String contentHash) {
+        int extension = name.lastIndexOf('.');
+        var suffix = "-" + contentHash.substring(0, 12);
+        return extension > 0 ? name.substring(0, extension) + suffix + name.substring(extension) : name + suffix;
+    }
+
+    /**
+     * Counts the products and users referencing the image with the given name.
+     *
+     * @param name The name of the image
+     * @return number of references to the image
+     */
+    private long countReferences(String name) {
+        return productRepo.countByImgName(name) + userRepo.countByProfilePicName(name);
+    }
+
+    /**
+     * Stores an image uploaded for a product or user and returns the name to reference it by.
+     * Images are never overwritten, since other products or users may reference them: an upload reuses
+     * the image with its name if the content is identical, and is otherwise saved under a name derived
+     * from its content. Either way, an identical upload costs at most one metadata row.
+     * <p>
+     * Must be called in the transaction saving the reference: a reused image stays locked against
+     * {@link #detach} until the transaction ends, so it cannot be deleted before the reference is visible.
+     *
+     * @param file The multipart file containing the image data
+     * @return name of the image holding the uploaded content
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String attach(MultipartFile file) {
+        var image = store(file);
+        var existing = imageRepo.findSharedByName(image.getName());
+        if (existing.isPresent() && !Objects.equals(existing.get().getContentHash(), image.getContentHash())) {
+            image.setName(getContentName(image.getName(), image.getContentHash()));
+            existing = imageRepo.findSharedByName(image.getName());
         }
-        return created(savedImages);
+        return existing.orElseGet(() -> imageRepo.save(image)).getName();
+    }
+
+    /**
+     * Drops a reference of a product or user to an image, deleting the image once nothing references it.
+     * The image content is left for the image reaper to collect.
+     * The image is locked before its references are counted, so an {@link #attach} reusing it concurrently
+     * either completes its reference first, which is then counted, or does not find the image anymore.
+     *
+     * @param name The name of the image no longer referenced, may be null
+     */
+    @Transactional
+    public void detach(String name) {
+        if (name == null)
+            return;
+        imageRepo.findLockedByName(name).ifPresent(image -> {
+            if (countReferences(name) > 0)
+                return;
+            imageRepo.delete(image);
+            imageCacheService.invalidate(name);
+        });
+    }
+
+    /**
+     * Creates and saves a single image from the provided multipart file.
+     *
+     * @param file The multipart file containing the image data
+     * @return response containing the created image
+     */
+    public ImageResponse create(MultipartFile file) {
+        var image = save(file);
+        return created(image);
     }
 
     /**
@@ -86,32 +202,111 @@ public class ImageService {
     }
 
     /**
-     * Retrieves the image data (as a byte array) for the specified filename.
+     * Retrieves the metadata of the image with the specified filename, from the cache if present.
      *
      * @param filename The name of the image file
-     * @return image data as a byte array
-     * @throws RuntimeException If an error occurs while retrieving the image data
-     */
-    public byte[] getImage(String filename) {
-        try {
-            var imageData = imageRepo.findByName(filename).orElseThrow(EntityNotFoundException::new);
-            return ImageUtils.decompressImage(imageData.getImageData());
-        } catch (DataFormatException | IOException e) {
-            throw new RuntimeException(e);
+     * @return retrieved image
+     * @throws EntityNotFoundException If the specified image is not found in the database
+     */
+    public Image getImage(String filename) {
+        var image = imageCacheService.getImage(filename, name -> imageRepo.findByName(name).orElse(null));
+        if (image == null)
+            throw new EntityNotFoundException();
+        return image;
+    }
+
+    /**
+     * Retrieves the version of the image with the specified filename, from the cache if present.
+     *
+     * @param filename The name of the image file, may be null
+     * @return SHA-256 digest of the image content, or null if the image is not found
+     */
+    public String getVersion(String filename) {
+        if (filename == null)
+            return null;
+        var image = imageCacheService.getImage(filename, name -> imageRepo.findByName(name).orElse(null));
+        return image == null ? null : image.getContentHash();
+    }
+
+    /**
+     * Retrieves the local file holding the content of the image, if the image store keeps local files
+     * and the content is stored as is.
+     *
+     * @param image The image
+     * @return file of the image content, or empty if not available
+     */
+    public Optional<Path> getImageFile(Image image) {
+        if (image.getCodec() == ImageCodec.DEFLATE)
+            return Optional.empty();
+        return imageStore.file(image.getContentHash());
+    }
+
+    /**
+     * Opens a stream of the content of the image, inflating it if it is stored deflated.
+     *
+     * @param image The image
+     * @return stream of the image content
+     * @throws IOException If the image content cannot be opened
+     */
+    public InputStream openImage(Image image) throws IOException {
+        return decode(imageStore.open(image.getContentHash()), image.getCodec());
+    }
+
+    /**
+     * Streams a part of the content of the image to the given output stream. Contents small enough are served
+     * from the in-memory cache, others are streamed from the image store through a fixed-size buffer,
+     * inflating them if they are stored deflated.
+     *
+     * @param image    The image
+     * @param position The position of the first byte to write
+     * @param count    The maximum number of bytes to write
+     * @param out      The stream to write to
+     * @throws IOException If an error occurs while reading or writing the image content
+     */
+    public void writeImage(Image image, long position, long count, OutputStream out) throws IOException {
+        var content = imageCacheService.getContent(image, this::openImage);
+        if (content != null) {
+            int start = (int) Math.min(position, content.limit());
+            int end = (int) Math.min(content.limit(), start + Math.min(count, Integer.MAX_VALUE));
+            Channels.newChannel(out).write(content.position(start).limit(end));
+            return;
+        }
+        if (image.getCodec() != ImageCodec.DEFLATE) {
+            imageStore.transferTo(image.getContentHash(), position, count, out);
+            return;
+        }
+        try (var in = openImage(image)) {
+            in.skipNBytes(position);
+            var buffer = new byte[8192];
+            int read;
+            while (count > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, count))) >= 0) {
+                out.write(buffer, 0, read);
+                count -= read;
+            }
         }
     }
 
     /**
-     * Retrieves all images from the database.
+     * Retrieves a page of image metadata, starting after the given image id.
+     * Only metadata columns are read, so the memory used is bounded by the page size rather than
+     * the number of images.
      *
-     * @return response containing all images
+     * @param after The id of the last image of the previous page, or null for the first page
+     * @param size  The number of images per page, or null for the default page size
+     * @return response containing the page of images and the cursor of the next page
      */
-    public ImageResponse readAll() {
-        return ok(imageRepo.findAll());
+    public ImagePageResponse readPage(Long after, Integer size) {
+        int limit = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        var images = imageRepo.findPageAfter(after == null ? Long.MIN_VALUE : after, Limit.of(limit + 1));
+        if (images.size() <= limit)
+            return ImagePageResponse.ok(images, null);
+        images = images.subList(0, limit);
+        return ImagePageResponse.ok(images, images.get(limit - 1).id());
     }
 
     /**
      * Updates an existing image with new data from the provided multipart file.
+     * Cached product listings are dropped, since they carry the previous image version.
      *
      * @param file     The multipart file containing the updated image data
      * @param filename The name of the image file to update
@@ -119,31 +314,29 @@ public class ImageService {
      */
     public ImageResponse update(MultipartFile file, String filename) {
         var oldImage = imageRepo.findByName(filename).orElseThrow(EntityNotFoundException::new);
-        try {
-            var image = imageRepo.save(Image.builder()
-                    .id(oldImage.getId())
-                    .name(Objects.requireNonNull(file.getOriginalFilename()).replace(' ', '_'))
-                    .type(file.getContentType())
-                    .imageData(ImageUtils.compressImage(file.getBytes()))
-                    .build());
-            return ok(image);
-        } catch (IOException e) {
-            throw new RuntimeException();
-        }
+        var newImage = store(file);
+        newImage.setId(oldImage.getId());
+        var image = imageRepo.save(newImage);
+        imageCacheService.invalidate(oldImage.getName());
+        imageCacheService.invalidate(image.getName());
+        catalogCacheService.invalidateAll();
+        return ok(image);
     }
 
     /**
-     * Deletes all images from the database.
+     * Deletes all images from the database. Their stored content is collected by the image reaper.
      *
      * @return response indicating success
      */
     public BasicResponse deleteAll() {
         imageRepo.deleteAll();
+        imageCacheService.invalidateAll();
         return noContent();
     }
 
     /**
      * Deletes the image with the specified filename from the database.
+     * Its stored content is collected by the image reaper once no other image references it.
      *
      * @param name The name of the image file to delete
      * @return response indicating success
@@ -152,6 +345,7 @@ public class ImageService {
     public BasicResponse delete(String name) {
         var image = imageRepo.findByName(name).orElseThrow(EntityNotFoundException::new);
         imageRepo.delete(image);
+        imageCacheService.invalidate(name);
 
         return noContent();
     }
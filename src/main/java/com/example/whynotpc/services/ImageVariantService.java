@@ -0,0 +1,270 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.models.img.ImageVariant;
+import com.example.whynotpc.utils.ExecutorUtils;
+import com.example.whynotpc.utils.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Service class producing resized and re-encoded variants of images.
+ * Each variant is generated once, kept on disk and in a size-bounded in-memory LRU cache.
+ * Generation runs on a bounded worker pool, and concurrent requests for the same variant share
+ * a single generation.
+ */
+@Service
+public class ImageVariantService {
+    private static final Set<String> FORMATS = Set.of("jpeg", "png");
+    private static final long MAX_SOURCE_PIXELS = 50_000_000;
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ImageService imageService;
+    private final Set<Integer> sizes;
+    private final Path root;
+    private final Path tmp;
+    private final ThreadPoolExecutor executor;
+    private final AsyncCache<ImageVariant, byte[]> variants;
+
+    /**
+     * Constructs a new ImageVariantService, creating the variant directory if needed.
+     *
+     * @param imageService  Service used to read the original image contents
+     * @param meterRegistry Registry the cache metrics are published to
+     * @param sizes         Allowed variant widths and heights
+     * @param root          Directory the variants are kept in
+     * @param maximumWeight Maximum total size in bytes of the variants kept in memory
+     * @param threads       Number of threads generating variants, 0 to use one per processor
+     * @param queueCapacity Maximum number of variant generations waiting for a thread
+     * @throws IOException If the variant directory cannot be created
+     */
+    public ImageVariantService(
+            ImageService imageService,
+            MeterRegistry meterRegistry,
+            @Value("${application.images.variants.sizes:64,128,160,240,320,480,640,800,1024,1200,1600,2048}") List<Integer> sizes,
+            @Value("${application.images.variants.root:images/variants}") Path root,
+            @Value("${application.images.variants.cache.maximum-weight:67108864}") long maximumWeight,
+            @Value("${application.images.variants.threads:0}") int threads,
+            @Value("${application.images.variants.queue-capacity:64}") int queueCapacity
+    ) throws IOException {
+        this.imageService = imageService;
+        this.sizes = Set.copyOf(sizes);
+        this.root = root.toAbsolutePath().normalize();
+        this.tmp = Files.createDirectories(this.root.resolve("tmp"));
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = ExecutorUtils.newBoundedPool("image-variants", poolSize, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+        this.variants = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .<ImageVariant, byte[]>weigher((variant, data) -> data.length)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, variants, "image_variants");
+    }
+
+    /**
+     * Resolves the variant of the image with the given parameters, without generating it.
+     * A missing format defaults to PNG for formats usually carrying transparency and to JPEG otherwise.
+     *
+     * @param image  The original image
+     * @param width  The maximum width of the variant, may be null
+     * @param height The maximum height of the variant, may be null
+     * @param format The format of the variant, may be null
+     * @return the requested variant
+     * @throws IllegalArgumentException If a dimension or the format is not allowed
+     */
+    public ImageVariant getVariant(Image image, Integer width, Integer height, String format) {
+        if (width != null && !sizes.contains(width) || height != null && !sizes.contains(height))
+            throw new IllegalArgumentException("Image size not allowed, allowed sizes: " + sizes);
+        if (format == null)
+            format = "image/png".equals(image.getType()) || "image/gif".equals(image.getType()) ? "png" : "jpeg";
+        format = format.toLowerCase();
+        if (format.equals("jpg"))
+            format = "jpeg";
+        if (!FORMATS.contains(format))
+            throw new IllegalArgumentException("Image format not allowed, allowed formats: " + FORMATS);
+        return new ImageVariant(image.getContentHash(), width == null ? 0 : width, height == null ? 0 : height, format);
+    }
+
+    /**
+     * Retrieves the content of the variant, from memory, from disk or by generating it.
+     *
+     * @param image   The original image
+     * @param variant The variant of the image
+     * @return content of the variant
+     * @throws TooManyRequestsException If the variant has to be generated and the worker pool is saturated
+     */
+    public byte[] getContent(Image image, ImageVariant variant) {
+        try {
+            return variants.get(variant, (key, ignored) -> CompletableFuture.supplyAsync(() -> load(image, key), executor))
+                    .join();
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Image variant generation capacity exceeded");
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes all variants of the content with the given hash, on disk and in memory.
+     *
+     * @param contentHash The SHA-256 digest of the original content
+     */
+    public void deleteVariants(String contentHash) {
+        variants.synchronous().asMap().keySet().removeIf(variant -> variant.contentHash().equals(contentHash));
+        try (var files = Files.newDirectoryStream(root, contentHash + "-*")) {
+            for (var file : files)
+                Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops the variant generation threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Reads the variant from disk, generating and storing it first if it does not exist yet.
+     *
+     * @param image   The original image
+     * @param variant The variant of the image
+     * @return content of the variant
+     */
+    private byte[] load(Image image, ImageVariant variant) {
+        var file = root.resolve(variant.fileName());
+        try {
+            if (Files.isRegularFile(file))
+                return Files.readAllBytes(file);
+            var data = generate(image, variant);
+            var tmpFile = Files.createTempFile(tmp, "variant", null);
+            try {
+                Files.write(tmpFile, data);
+                Files.move(tmpFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the original image, scales it to fit the variant dimensions and encodes it in the variant format.
+     * Images are never scaled up.
+     *
+     * @param image   The original image
+     * @param variant The variant of the image
+     * @return content of the variant
+     * @throws IOException If the original image cannot be read
+     */
+    private byte[] generate(Image image, ImageVariant variant) throws IOException {
+        BufferedImage source;
+        try (var in = imageService.openImage(image); var stream = ImageIO.createImageInputStream(in)) {
+            source = read(stream);
+        }
+
+        double scale = 1;
+        if (variant.width() > 0)
+            scale = Math.min(scale, (double) variant.width() / source.getWidth());
+        if (variant.height() > 0)
+            scale = Math.min(scale, (double) variant.height() / source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        boolean opaque = variant.format().equals("jpeg");
+        var target = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        var graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (opaque) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return write(target, variant.format());
+    }
+
+    /**
+     * Decodes an image, refusing images too large to decode safely.
+     *
+     * @param stream The stream of the encoded image
+     * @return decoded image
+     * @throws IOException              If the image cannot be read
+     * @throws IllegalArgumentException If the image format is not supported or the image is too large
+     */
+    private static BufferedImage read(ImageInputStream stream) throws IOException {
+        var readers = stream == null ? null : ImageIO.getImageReaders(stream);
+        if (readers == null || !readers.hasNext())
+            throw new IllegalArgumentException("Image format not supported for resizing");
+        var reader = readers.next();
+        try {
+            reader.setInput(stream, true, true);
+            if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS)
+                throw new IllegalArgumentException("Image too large for resizing");
+            return reader.read(0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Encodes an image in the given format.
+     *
+     * @param image  The image to encode
+     * @param format The format, "jpeg" or "png"
+     * @return encoded image
+     * @throws IOException If the image cannot be encoded
+     */
+    private static byte[] write(BufferedImage image, String format) throws IOException {
+        var writer = ImageIO.getImageWritersByFormatName(format).next();
+        var out = new ByteArrayOutputStream();
+        try (var stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            var param = writer.getDefaultWriteParam();
+            if (format.equals("jpeg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.whynotpc.services;
 
+import com.example.whynotpc.models.jwt.TokenClaims;
+import com.example.whynotpc.models.users.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -13,47 +15,65 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
+import static com.example.whynotpc.models.jwt.TokenClaims.*;
+
 /**
  * Service class responsible for handling JWT (JSON Web Token) related operations.
+ * The signing key and the parser are immutable and thread-safe, so they are created once and shared.
  */
 @Service
-@RequiredArgsConstructor
 public class JwtService {
-    @Value("${application.security.jwt.secret-key}")
-    private String secretKey;
-    @Value("${application.security.jwt.expiration}")
-    private long jwtExpiration;
-    @Value("${application.security.jwt.refresh-token.expiration}")
-    private long refreshExpiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpiration;
+    private final long refreshExpiration;
 
     /**
-     * Retrieves the signing key used for JWT generation.
+     * Constructs a new JwtService, decoding the signing key and building the parser once.
      *
-     * @return signing key
+     * @param secretKey         Base64-encoded secret key used to sign tokens
+     * @param jwtExpiration     Expiration time for access tokens, in milliseconds
+     * @param refreshExpiration Expiration time for refresh tokens, in milliseconds
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtService(
+            @Value("${application.security.jwt.secret-key}") String secretKey,
+            @Value("${application.security.jwt.expiration}") long jwtExpiration,
+            @Value("${application.security.jwt.refresh-token.expiration}") long refreshExpiration
+    ) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
     }
 
     /**
      * Builds a JWT token with the provided extra claims, user details, and expiration.
+     * Every token gets a random token id, its type and, for application users, the user id and role,
+     * so that access tokens can be validated without loading the user.
      *
      * @param extraClaims   Extra claims to include in the token
      * @param userDetails   User details used to generate the token
+     * @param type          Type of the token, either access or refresh
      * @param expiration    Expiration time for the token
      * @return generated JWT token
      */
-    private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
-        return Jwts
+    private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, String type, long expiration) {
+        var builder = Jwts
                 .builder()
                 .claims(extraClaims)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
+                .claim(TYPE_CLAIM, type);
+        if (userDetails instanceof User user && user.getId() != null && user.getRole() != null)
+            builder.claim(USER_ID_CLAIM, user.getId())
+                    .claim(ROLE_CLAIM, user.getRole().name());
+        return builder
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS384)
+                .signWith(signingKey, Jwts.SIG.HS384)
                 .compact();
     }
 
@@ -65,7 +85,7 @@ public class JwtService {
      * @return generated JWT string
      */
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        return buildToken(extraClaims, userDetails, ACCESS_TYPE, jwtExpiration);
     }
 
     /**
@@ -85,7 +105,16 @@ public class JwtService {
      * @return generated refresh JWT string
      */
     public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+        return buildToken(new HashMap<>(), userDetails, REFRESH_TYPE, refreshExpiration);
+    }
+
+    /**
+     * Retrieves the expiration time for access tokens.
+     *
+     * @return expiration time for access tokens, in milliseconds
+     */
+    public long getAccessTokenExpiration() {
+        return jwtExpiration;
     }
 
     /**
@@ -95,10 +124,7 @@ public class JwtService {
      * @return All claims extracted from the token
      */
     private Claims getAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -127,23 +153,15 @@ public class JwtService {
     }
 
     /**
-     * Retrieves the expiration date of the provided JWT token.
-     *
-     * @param token JWT to extract the expiration date from
-     * @return expiration date extracted from the token
-     */
-    private Date getExpiration(String token) {
-        return getClaim(token, Claims::getExpiration);
-    }
-
-    /**
-     * Checks if the provided JWT token is expired.
+     * Verifies the provided JWT token and extracts its claims in a single pass.
      *
-     * @param token JWT to check for expiration
-     * @return True if the token is expired, false otherwise
+     * @param token JWT to validate
+     * @return claims extracted from the token
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, has an invalid signature or is expired
+     * @throws IllegalArgumentException     if the token is null or blank
      */
-    public boolean isTokenExpired(String token) {
-        return getExpiration(token).before(new Date());
+    public TokenClaims validate(String token) {
+        return TokenClaims.of(getAllClaims(token));
     }
 
     /**
@@ -154,7 +172,7 @@ public class JwtService {
      * @return True if the token is valid, false otherwise
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        return getUsername(token)
-                .equals(userDetails.getUsername()) && !isTokenExpired(token);
+        var claims = validate(token);
+        return claims.subject().equals(userDetails.getUsername()) && claims.expiration().after(new Date());
     }
 }
@@ -0,0 +1,148 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.dto.ProductDTO;
+import com.example.whynotpc.models.response.ProductResponse;
+import com.example.whynotpc.persistence.products.ProductRepo;
+import com.example.whynotpc.utils.InvertedIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.example.whynotpc.models.response.ProductResponse.ok;
+import static com.example.whynotpc.utils.StrChecker.isNullOrBlank;
+import static com.example.whynotpc.utils.TransactionUtils.afterCommit;
+
+/**
+ * Service class searching products by title through an in-memory inverted index.
+ * The index is built from the database once the application is ready and kept up to date by product writes
+ * on this instance, once they commit; writes made by other instances show up after the next restart.
+ * Writes made while the index is rebuilt are replayed on the new index before it replaces the current one.
+ * Matching products are always read from the database, so products deleted elsewhere are never returned;
+ * until the index drops them, they still take result slots, so a search may return fewer products than its limit.
+ */
+@Service
+public class ProductSearchService {
+    private final ProductRepo productRepo;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final Object writeLock = new Object();
+    private volatile InvertedIndex index = new InvertedIndex();
+    private List<Consumer<InvertedIndex>> pendingWrites;
+
+    /**
+     * Constructs a new ProductSearchService.
+     *
+     * @param productRepo   Repository of the products
+     * @param meterRegistry Registry the index metrics are published to
+     * @param defaultLimit  Number of products returned when no limit is given
+     * @param maxLimit      Maximum number of products returned
+     */
+    public ProductSearchService(
+            ProductRepo productRepo,
+            MeterRegistry meterRegistry,
+            @Value("${application.products.search.default-limit:20}") int defaultLimit,
+            @Value("${application.products.search.max-limit:100}") int maxLimit
+    ) {
+        this.productRepo = productRepo;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        meterRegistry.gauge("products.search.indexed", this, service -> service.index.size());
+    }
+
+    /**
+     * Builds the index from all products in the database and replaces the current one.
+     * Searches keep using the previous index until the new one is complete. Writes applied meanwhile are
+     * recorded and replayed on the new index, so that none committed after the products were read is lost.
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        synchronized (writeLock) {
+            pendingWrites = new ArrayList<>();
+        }
+        var rebuilt = new InvertedIndex();
+        try (var products = productRepo.streamAll()) {
+            products.forEach(product -> rebuilt.put(product.id(), product.title()));
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                pendingWrites = null;
+            }
+            throw e;
+        }
+        synchronized (writeLock) {
+            pendingWrites.forEach(write -> write.accept(rebuilt));
+            pendingWrites = null;
+            index = rebuilt;
+        }
+    }
+
+    /**
+     * Adds the product to the index, or updates its indexed title, once the current transaction commits.
+     *
+     * @param product The product
+     */
+    public void index(ProductDTO product) {
+        afterCommit(() -> write(index -> index.put(product.id(), product.title())));
+    }
+
+    /**
+     * Removes the product with the given id from the index, once the current transaction commits.
+     *
+     * @param id The ID of the product
+     */
+    public void remove(Long id) {
+        afterCommit(() -> write(index -> index.remove(id)));
+    }
+
+    /**
+     * Removes all products from the index, once the current transaction commits.
+     */
+    public void clear() {
+        afterCommit(() -> write(InvertedIndex::clear));
+    }
+
+    /**
+     * Applies a write to the current index, recording it to be replayed if the index is being rebuilt.
+     *
+     * @param write The write
+     */
+    private void write(Consumer<InvertedIndex> write) {
+        synchronized (writeLock) {
+            write.accept(index);
+            if (pendingWrites != null)
+                pendingWrites.add(write);
+        }
+    }
+
+    /**
+     * Searches products whose title contains every word of the query, the last one exactly or as a word prefix.
+     *
+     * @param query The search query
+     * @param limit The maximum number of products to return (optional)
+     * @return ProductResponse containing the matching products, best match first
+     * @throws IllegalArgumentException if the query is blank
+     */
+    public ProductResponse search(String query, Integer limit) {
+        if (isNullOrBlank(query))
+            throw new IllegalArgumentException("Search query is blank");
+        var ids = index.search(query, limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit)));
+        if (ids.isEmpty())
+            return ok(List.of());
+
+        var rank = new HashMap<Long, Integer>();
+        for (int i = 0; i < ids.size(); i++)
+            rank.put(ids.get(i), i);
+        var products = new ArrayList<>(productRepo.findAllProjectedByIdIn(ids));
+        products.sort(Comparator.comparing(product -> rank.get(product.id())));
+        return ok(products);
+    }
+}
@@ -4,22 +4,31 @@ import com.example.whynotpc.models.dto.ProductDTO;
 import com.example.whynotpc.models.product.Category;
 import com.example.whynotpc.models.product.Product;
 import com.example.whynotpc.models.response.BasicResponse;
+import com.example.whynotpc.models.response.EncodedResponse;
 import com.example.whynotpc.models.response.ProductPageResponse;
 import com.example.whynotpc.models.response.ProductResponse;
+import com.example.whynotpc.models.response.ProductWindowResponse;
 import com.example.whynotpc.persistence.orders.OrderItemRepo;
 import com.example.whynotpc.persistence.products.CategoryRepo;
 import com.example.whynotpc.persistence.products.ProductRepo;
+import com.example.whynotpc.services.CatalogCacheService.CatalogEntry;
+import com.example.whynotpc.services.CatalogCacheService.CatalogKey;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 
@@ -36,10 +45,16 @@ import static org.springframework.data.domain.Sort.Direction.valueOf;
 @Service
 @RequiredArgsConstructor
 public class ProductService {
+    private static final int PAGE_SIZE = 12;
+
     private final ProductRepo productRepo;
     private final CategoryRepo categoryRepo;
     private final OrderItemRepo orderItemRepo;
     private final ImageService imageService;
+    private final CatalogCacheService catalogCacheService;
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestService productSuggestService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Retrieves a category by its name.
@@ -77,11 +92,14 @@ public class ProductService {
                 .category(category)
                 .build();
 
-        if (file != null) {
-            imageService.create(file);
-            product.setImgName(Objects.requireNonNull(file.getOriginalFilename()).replace(' ', '_'));
-        }
-        return productRepo.save(product);
+        if (file != null)
+            product.setImgName(imageService.attach(file));
+        product = productRepo.save(product);
+        catalogCacheService.invalidateCategories(List.of(category.getName()));
+        var dto = ProductDTO.from(product);
+        productSearchService.index(dto);
+        productSuggestService.index(product, category);
+        return product;
     }
 
     /**
@@ -92,9 +110,10 @@ public class ProductService {
      * @return ProductResponse containing the saved product
      * @throws IllegalArgumentException if some properties in the productDTO are null or blank, or if the price is negative
      */
+    @Transactional
     public ProductResponse create(ProductDTO productDTO, MultipartFile file) {
         var product = save(productDTO, file);
-        return ok(product);
+        return ok(ProductDTO.from(product));
     }
 
     /**
@@ -105,11 +124,11 @@ public class ProductService {
      */
     @Transactional
     public ProductResponse create(List<ProductDTO> products) {
-        List<Product> savedProducts = new ArrayList<>();
+        List<ProductDTO> savedProducts = new ArrayList<>();
         Product savedProduct;
         for (var product : products) {
             savedProduct = save(product, null);
-            savedProducts.add(savedProduct);
+            savedProducts.add(ProductDTO.from(savedProduct));
         }
         return created(savedProducts);
     }
@@ -137,7 +156,7 @@ public class ProductService {
             }
             sortingStrategy = Sort.by(direction, sort);
         }
-        return PageRequest.of(page, 12, sortingStrategy);
+        return PageRequest.of(page, PAGE_SIZE, sortingStrategy);
     }
 
     /**
@@ -147,31 +166,145 @@ public class ProductService {
      * @param page         The page number for pagination (optional)
      * @param sort         The field to sort by (optional)
      * @param order        The sorting order (optional)
-     * @return BasicResponse containing the retrieved products
+     * @return encoded response containing the retrieved products
+     */
+    public EncodedResponse read(String categoryName, Integer page, String sort, String order) {
+        return catalogCacheService.get(CatalogKey.products(categoryName, page, sort, order),
+                () -> load(categoryName, page, sort, order));
+    }
+
+    /**
+     * Loads products based on the provided parameters from the database.
+     *
+     * @param categoryName The name of the category to filter products by (optional)
+     * @param page         The page number for pagination (optional)
+     * @param sort         The field to sort by (optional)
+     * @param order        The sorting order (optional)
+     * @return entry containing the retrieved products and the name of the category they were filtered by
      */
-    public BasicResponse read(String categoryName, Integer page, String sort, String order) {
-        List<Product> products;
-        Page<Product> productsPage;
+    private CatalogEntry load(String categoryName, Integer page, String sort, String order) {
+        List<ProductDTO> products;
+        Page<ProductDTO> productsPage;
         if (page == null && sort == null) {
             if (categoryName == null) { // All products
-                products = productRepo.findAll();
-                return ok(products);
+                products = productRepo.findAllProjected();
+                return new CatalogEntry(null, ok(products));
             }
             // All products by category
             var category = getCategory(categoryName);
-            products = productRepo.findAllByCategory(category);
-            return ProductPageResponse.ok(products);
+            products = productRepo.findAllProjectedByCategory(category);
+            return new CatalogEntry(category.getName(), ProductPageResponse.ok(products));
         }
         // Params included
         var pageRequest = createPageRequest(page, sort, order);
         Category category;
         try {
             category = getCategory(categoryName);
-            productsPage = productRepo.findPageByCategory(category, pageRequest);
+            productsPage = productRepo.findPageProjectedByCategory(category, pageRequest);
         } catch (EntityNotFoundException ignored) {
-            productsPage = productRepo.findAll(pageRequest);
+            return new CatalogEntry(null, ProductPageResponse.ok(productRepo.findPageProjected(pageRequest)));
+        }
+        return new CatalogEntry(category.getName(), ProductPageResponse.ok(productsPage));
+    }
+
+    /**
+     * Retrieves a page of products following the given cursor. Unlike numbered pages, each page seeks
+     * directly to the sort key of the previous page's last product and needs no count query,
+     * so deep pages cost as much as the first one.
+     *
+     * @param categoryName The name of the category to filter products by (optional)
+     * @param sort         The field to sort by, "id", "price" or "title" (optional, defaults to "id")
+     * @param order        The sorting order (optional)
+     * @param cursor       The cursor returned with the previous page, or blank for the first page
+     * @param withTotal    Whether to count the total number of matching products
+     * @return ProductWindowResponse containing the page of products and the cursor of the next page
+     * @throws IllegalArgumentException if the sort field is not supported or the cursor is invalid
+     */
+    public ProductWindowResponse read(String categoryName, String sort, String order, String cursor, boolean withTotal) {
+        if (sort == null)
+            sort = "id";
+        boolean descending = "desc".equalsIgnoreCase(order);
+        var category = categoryName == null ? null : categoryRepo.findByName(categoryName).orElse(null);
+
+        Long lastId = null;
+        Object lastValue = null;
+        if (!isNullOrBlank(cursor)) {
+            var key = decodeCursor(cursor, sort, descending);
+            lastId = Long.valueOf(key[0]);
+            lastValue = switch (sort) {
+                case "price" -> new BigDecimal(key[1]);
+                case "title" -> key[1];
+                default -> null;
+            };
+        }
+
+        var products = productRepo.findSeekPage(category, sort, descending, lastValue, lastId, PAGE_SIZE + 1);
+        String next = null;
+        if (products.size() > PAGE_SIZE) {
+            products = products.subList(0, PAGE_SIZE);
+            next = encodeCursor(sort, descending, products.get(PAGE_SIZE - 1));
+        }
+        Long total = null;
+        if (withTotal)
+            total = category == null ? productRepo.count() : productRepo.countByCategory(category);
+        return ProductWindowResponse.ok(products, next, total);
+    }
+
+    /**
+     * Encodes the sort key of the product into an opaque cursor.
+     *
+     * @param sort       The field sorted by
+     * @param descending Whether the products are sorted in descending order
+     * @param product    The last product of the page
+     * @return cursor of the next page
+     */
+    static String encodeCursor(String sort, boolean descending, ProductDTO product) {
+        var value = switch (sort) {
+            case "price" -> product.price().toPlainString();
+            case "title" -> product.title();
+            default -> "";
+        };
+        var key = String.join("\n", sort, descending ? "desc" : "asc", product.id().toString(), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor into the id and sort field value of the last product of the previous page.
+     *
+     * @param cursor     The cursor
+     * @param sort       The field sorted by
+     * @param descending Whether the products are sorted in descending order
+     * @return the id and the sort field value
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort order
+     */
+    static String[] decodeCursor(String cursor, String sort, boolean descending) {
+        var key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 4);
+        if (key.length != 4 || !key[0].equals(sort) || !key[1].equals(descending ? "desc" : "asc"))
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        return new String[]{key[2], key[3]};
+    }
+
+    /**
+     * Writes all products, optionally of a specific category, to the output stream as newline-delimited JSON.
+     * Products are streamed from the database cursor straight to the output, so memory use stays constant
+     * regardless of the catalog size.
+     *
+     * @param categoryName The name of the category to filter products by (optional)
+     * @param out          The stream to write to
+     * @throws EntityNotFoundException if no category with the given name exists
+     * @throws IOException if an error occurs while writing
+     */
+    @Transactional(readOnly = true)
+    public void export(String categoryName, OutputStream out) throws IOException {
+        var category = categoryName == null ? null : getCategory(categoryName);
+        var writer = objectMapper.writerFor(ProductDTO.class);
+        try (var products = category == null ? productRepo.streamAll() : productRepo.streamAllByCategory(category)) {
+            for (var iterator = products.iterator(); iterator.hasNext(); ) {
+                out.write(writer.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
         }
-        return ProductPageResponse.ok(productsPage);
+        out.flush();
     }
 
     /**
@@ -182,7 +315,7 @@ public class ProductService {
      * @throws EntityNotFoundException if no product with the given ID exists
      */
     public ProductResponse read(Long id) {
-        return productRepo.findById(id)
+        return productRepo.findProjectedById(id)
                 .map(ProductResponse::ok)
                 .orElseThrow(EntityNotFoundException::new);
     }
@@ -197,8 +330,10 @@ public class ProductService {
      * @throws EntityNotFoundException if no product with the given ID exists
      * @throws IllegalArgumentException if the new product category is not found, or if the price is negative
      */
+    @Transactional
     public ProductResponse update(Long id, ProductDTO newProduct, MultipartFile file) {
         var product = productRepo.findById(id).orElseThrow(EntityNotFoundException::new);
+        var oldCategory = product.getCategory();
 
         if (newProduct != null) {
             var category = categoryRepo.findByName(newProduct.category()).orElse(null);
@@ -212,19 +347,20 @@ public class ProductService {
             if (!isNullOrBlank(newProduct.category())) product.setCategory(category);
         }
 
-        if (file != null) {
-            var presentImage = imageService.read(product.getImgName());
-
-            if (presentImage == null) imageService.create(file);
-            else imageService.update(file, presentImage.getName());
-
-            product.setImgName(Objects.requireNonNull(file.getOriginalFilename()).replace(' ', '_'));
-        }
+        var oldImgName = product.getImgName();
+        if (file != null)
+            product.setImgName(imageService.attach(file));
         var items = product.getOrderItems();
         orderItemRepo.saveAll(items);
         product = productRepo.save(product);
+        if (!Objects.equals(oldImgName, product.getImgName()))
+            imageService.detach(oldImgName);
+        catalogCacheService.invalidateCategories(List.of(oldCategory.getName(), product.getCategory().getName()));
+        var dto = ProductDTO.from(product);
+        productSearchService.index(dto);
+        productSuggestService.index(product, oldCategory);
 
-        return ok(product);
+        return ok(dto);
     }
 
     /**
@@ -237,6 +373,10 @@ public class ProductService {
     public BasicResponse delete(Long id) {
         var product = productRepo.findById(id).orElseThrow(EntityNotFoundException::new);
         productRepo.delete(product);
+        imageService.detach(product.getImgName());
+        catalogCacheService.invalidateCategories(List.of(product.getCategory().getName()));
+        productSearchService.remove(id);
+        productSuggestService.remove(product);
         return noContent();
     }
 
@@ -246,7 +386,12 @@ public class ProductService {
      * @return BasicResponse indicating the success of the operation
      */
     public BasicResponse deleteAll() {
+        var imgNames = productRepo.findAll().stream().map(Product::getImgName).distinct().toList();
         productRepo.deleteAll();
+        imgNames.forEach(imageService::detach);
+        catalogCacheService.invalidateAll();
+        productSearchService.clear();
+        productSuggestService.rebuild();
         return noContent();
     }
 }
@@ -0,0 +1,229 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.order.OrderItem;
+import com.example.whynotpc.models.product.Category;
+import com.example.whynotpc.models.product.Product;
+import com.example.whynotpc.models.response.SuggestionResponse;
+import com.example.whynotpc.persistence.orders.OrderItemRepo;
+import com.example.whynotpc.persistence.products.CategoryRepo;
+import com.example.whynotpc.persistence.products.ProductRepo;
+import com.example.whynotpc.utils.SuggestionTrie;
+import com.example.whynotpc.utils.SuggestionTrie.Suggestion;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.example.whynotpc.models.order.OrderStatus.COMPLETED;
+import static com.example.whynotpc.models.response.SuggestionResponse.ok;
+import static com.example.whynotpc.utils.TransactionUtils.afterCommit;
+
+/**
+ * Service class suggesting product titles and category names for a typed prefix through an in-memory radix trie.
+ * Suggestions are ordered by popularity: the number of pieces ordered for a product, and the sum over its
+ * products for a category. The trie is built from the database once the application is ready and kept up
+ * to date by product, category and checkout writes on this instance, once they commit; writes made by other
+ * instances show up after the next restart. Writes made while the trie is rebuilt are replayed on the new trie
+ * before it replaces the current one; a checkout or category move committing while the rebuild reads the
+ * database may therefore be counted twice.
+ */
+@Service
+public class ProductSuggestService {
+    static final String PRODUCT = "product";
+    static final String CATEGORY = "category";
+
+    private final ProductRepo productRepo;
+    private final CategoryRepo categoryRepo;
+    private final OrderItemRepo orderItemRepo;
+    private final int size;
+    private final Object writeLock = new Object();
+    private volatile SuggestionTrie trie;
+    private List<Consumer<SuggestionTrie>> pendingWrites;
+
+    /**
+     * Constructs a new ProductSuggestService.
+     *
+     * @param productRepo   Repository of the products
+     * @param categoryRepo  Repository of the categories
+     * @param orderItemRepo Repository of the order items the popularity is counted from
+     * @param meterRegistry Registry the trie metrics are published to
+     * @param size          Maximum number of suggestions returned per prefix
+     */
+    public ProductSuggestService(
+            ProductRepo productRepo,
+            CategoryRepo categoryRepo,
+            OrderItemRepo orderItemRepo,
+            MeterRegistry meterRegistry,
+            @Value("${application.products.suggest.size:10}") int size
+    ) {
+        this.productRepo = productRepo;
+        this.categoryRepo = categoryRepo;
+        this.orderItemRepo = orderItemRepo;
+        this.size = size;
+        this.trie = new SuggestionTrie(size);
+        meterRegistry.gauge("products.suggest.entries", this, service -> service.trie.size());
+    }
+
+    /**
+     * Builds the trie from all products, categories and completed orders in the database and replaces
+     * the current one. Lookups keep using the previous trie until the new one is complete. Writes applied meanwhile
+     * are recorded and replayed on the new trie, so that none committed after the database was read is lost.
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        synchronized (writeLock) {
+            pendingWrites = new ArrayList<>();
+        }
+        SuggestionTrie rebuilt;
+        try {
+            rebuilt = read();
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                pendingWrites = null;
+            }
+            throw e;
+        }
+        synchronized (writeLock) {
+            pendingWrites.forEach(write -> write.accept(rebuilt));
+            pendingWrites = null;
+            trie = rebuilt;
+        }
+    }
+
+    /**
+     * Builds a trie from all products, categories and completed orders in the database.
+     *
+     * @return trie holding the suggestions
+     */
+    private SuggestionTrie read() {
+        var ordered = new HashMap<Long, Long>();
+        for (var popularity : orderItemRepo.sumQuantitiesByProduct(COMPLETED))
+            ordered.put(popularity.productId(), popularity.ordered());
+
+        var suggestions = new ArrayList<Suggestion>();
+        var orderedByCategory = new HashMap<String, Long>();
+        try (var products = productRepo.streamAll()) {
+            products.forEach(product -> {
+                long weight = ordered.getOrDefault(product.id(), 0L);
+                suggestions.add(new Suggestion(PRODUCT, product.id(), product.title(), weight));
+                orderedByCategory.merge(product.category(), weight, Long::sum);
+            });
+        }
+        for (var category : categoryRepo.findAll())
+            suggestions.add(new Suggestion(CATEGORY, category.getId(), category.getName(),
+                    orderedByCategory.getOrDefault(category.getName(), 0L)));
+        return SuggestionTrie.of(size, suggestions);
+    }
+
+    /**
+     * Adds the product to the suggestions, or updates its suggested title, once the current transaction commits.
+     * If the product moved to another category, its popularity moves along with it.
+     *
+     * @param product          The product
+     * @param previousCategory The category of the product before the write
+     */
+    public void index(Product product, Category previousCategory) {
+        var id = product.getId();
+        var title = product.getTitle();
+        var categoryId = product.getCategory().getId();
+        var previousCategoryId = previousCategory.getId();
+        afterCommit(() -> write(trie -> {
+            trie.put(PRODUCT, id, title);
+            if (previousCategoryId.equals(categoryId))
+                return;
+            long weight = trie.get(PRODUCT, id).weight();
+            trie.addWeight(CATEGORY, previousCategoryId, -weight);
+            trie.addWeight(CATEGORY, categoryId, weight);
+        }));
+    }
+
+    /**
+     * Adds the category to the suggestions, or updates its suggested name, once the current transaction commits.
+     *
+     * @param category The category
+     */
+    public void index(Category category) {
+        var id = category.getId();
+        var name = category.getName();
+        afterCommit(() -> write(trie -> trie.put(CATEGORY, id, name)));
+    }
+
+    /**
+     * Removes the product from the suggestions and its popularity from its category's,
+     * once the current transaction commits.
+     *
+     * @param product The deleted product
+     */
+    public void remove(Product product) {
+        var id = product.getId();
+        var categoryId = product.getCategory().getId();
+        afterCommit(() -> write(trie -> {
+            var suggestion = trie.get(PRODUCT, id);
+            if (suggestion == null)
+                return;
+            trie.remove(PRODUCT, id);
+            trie.addWeight(CATEGORY, categoryId, -suggestion.weight());
+        }));
+    }
+
+    /**
+     * Adds the quantities of the checked out items to the popularity of their products and categories,
+     * once the current transaction commits.
+     *
+     * @param items The items of the completed order
+     */
+    public void record(List<OrderItem> items) {
+        var ordered = items.stream()
+                .map(item -> new Ordered(item.getProduct().getId(), item.getProduct().getCategory().getId(),
+                        item.getQuantity()))
+                .toList();
+        afterCommit(() -> write(trie -> {
+            for (var item : ordered) {
+                trie.addWeight(PRODUCT, item.productId(), item.quantity());
+                trie.addWeight(CATEGORY, item.categoryId(), item.quantity());
+            }
+        }));
+    }
+
+    /**
+     * Applies a write to the current trie, recording it to be replayed if the trie is being rebuilt.
+     * Writes are serialized, so that each one is applied atomically.
+     *
+     * @param write The write
+     */
+    private void write(Consumer<SuggestionTrie> write) {
+        synchronized (writeLock) {
+            write.accept(trie);
+            if (pendingWrites != null)
+                pendingWrites.add(write);
+        }
+    }
+
+    /**
+     * Suggests the most popular product titles and category names starting with the prefix, ignoring case.
+     *
+     * @param prefix The prefix typed so far
+     * @return SuggestionResponse containing the suggestions, most popular first
+     */
+    public SuggestionResponse suggest(String prefix) {
+        return ok(trie.suggest(prefix));
+    }
+
+    /**
+     * Quantity ordered of a product, read before the order items leave the persistence context.
+     *
+     * @param productId  The ID of the product
+     * @param categoryId The ID of the category of the product
+     * @param quantity   The ordered quantity
+     */
+    private record Ordered(Long productId, Long categoryId, int quantity) {
+    }
+}
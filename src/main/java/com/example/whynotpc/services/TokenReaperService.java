@@ -0,0 +1,87 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.persistence.jwt.AccessTokenRepo;
+import com.example.whynotpc.persistence.jwt.RefreshTokenRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Service class periodically deleting expired access and refresh tokens in bounded batches,
+ * so that the token tables do not grow with every login.
+ */
+@Service
+public class TokenReaperService {
+    private final AccessTokenRepo accessTokenRepo;
+    private final RefreshTokenRepo refreshTokenRepo;
+    private final int batchSize;
+    private final Counter reapedAccessTokens;
+    private final Counter reapedRefreshTokens;
+    private final AtomicLong storedAccessTokens = new AtomicLong();
+    private final AtomicLong storedRefreshTokens = new AtomicLong();
+
+    /**
+     * Constructs a new TokenReaperService.
+     *
+     * @param accessTokenRepo  Repository of the stored access tokens
+     * @param refreshTokenRepo Repository of the stored refresh tokens
+     * @param meterRegistry    Registry the reaper metrics are published to
+     * @param batchSize        Maximum number of tokens deleted per statement
+     */
+    public TokenReaperService(
+            AccessTokenRepo accessTokenRepo,
+            RefreshTokenRepo refreshTokenRepo,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.reaper.batch-size:1000}") int batchSize
+    ) {
+        this.accessTokenRepo = accessTokenRepo;
+        this.refreshTokenRepo = refreshTokenRepo;
+        this.batchSize = batchSize;
+        this.reapedAccessTokens = meterRegistry.counter("tokens.reaped", "table", "access_tokens");
+        this.reapedRefreshTokens = meterRegistry.counter("tokens.reaped", "table", "refresh_tokens");
+        meterRegistry.gauge("tokens.stored", Tags.of("table", "access_tokens"), storedAccessTokens);
+        meterRegistry.gauge("tokens.stored", Tags.of("table", "refresh_tokens"), storedRefreshTokens);
+    }
+
+    /**
+     * Deletes all expired tokens. Refresh tokens are deleted first, so that the access tokens they referenced
+     * can be deleted in the same run. Table sizes are recorded afterwards.
+     */
+    @Scheduled(
+            initialDelayString = "${application.security.jwt.reaper.initial-delay:PT1M}",
+            fixedDelayString = "${application.security.jwt.reaper.interval:PT1H}"
+    )
+    public void reapExpiredTokens() {
+        var now = LocalDateTime.now();
+        reapedRefreshTokens.increment(reap(refreshTokenRepo::deleteExpiredBatch, now));
+        reapedAccessTokens.increment(reap(accessTokenRepo::deleteExpiredBatch, now));
+
+        storedRefreshTokens.set(refreshTokenRepo.count());
+        storedAccessTokens.set(accessTokenRepo.count());
+    }
+
+    /**
+     * Repeatedly deletes batches of expired tokens until a batch comes back incomplete.
+     * Each batch runs in its own transaction, so locks are held only briefly.
+     *
+     * @param deleteBatch Function deleting a batch of tokens expired before the given time
+     * @param now         The time to compare expirations against
+     * @return total number of deleted tokens
+     */
+    private long reap(ToIntBiFunction<LocalDateTime, Integer> deleteBatch, LocalDateTime now) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = deleteBatch.applyAsInt(now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+}
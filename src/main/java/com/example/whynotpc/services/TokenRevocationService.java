@@ -0,0 +1,252 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.jwt.AccessToken;
+import com.example.whynotpc.models.jwt.TokenClaims;
+import com.example.whynotpc.persistence.jwt.AccessTokenRepo;
+import com.example.whynotpc.utils.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class keeping track of valid and revoked access tokens in memory, so that signed tokens can be
+ * validated without a database lookup.
+ * Known-valid token ids are held in a bounded cache populated on login, refresh and successful database checks;
+ * an entry is trusted for at most {@code application.security.jwt.cache.expire-after-write}, and only when
+ * stateless validation is enabled. Revoked token ids are held until the token expires, behind a Bloom filter answering most lookups for
+ * non-revoked tokens without touching the exact set.
+ */
+@Service
+public class TokenRevocationService {
+    private static final long PRUNE_INTERVAL = 60_000;
+
+    private final JwtService jwtService;
+    private final AccessTokenRepo accessTokenRepo;
+    private final Cache<String, Long> validTokens;
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final int expectedRevocations;
+    private volatile BloomFilter revokedFilter;
+    private final Clock clock;
+    private long lastPrunedAt;
+    private final long startedAt;
+    private final Counter revokedFilterNegatives;
+    private final Counter revokedFilterFalsePositives;
+    private final Counter revokedHits;
+
+    /**
+     * Constructs a new TokenRevocationService.
+     *
+     * @param jwtService          Service used to parse tokens
+     * @param accessTokenRepo     Repository of the stored access tokens
+     * @param meterRegistry       Registry the cache metrics are published to
+     * @param maximumSize         Maximum number of known-valid tokens kept in memory
+     * @param expireAfterWrite    Time after which a known-valid token has to be checked against the database again
+     * @param expectedRevocations Expected number of simultaneously revoked tokens, used to size the Bloom filter
+     */
+    @Autowired
+    public TokenRevocationService(
+            JwtService jwtService,
+            AccessTokenRepo accessTokenRepo,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.cache.maximum-size:100000}") long maximumSize,
+            @Value("${application.security.jwt.cache.expire-after-write:5m}") Duration expireAfterWrite,
+            @Value("${application.security.jwt.cache.expected-revocations:100000}") int expectedRevocations
+    ) {
+        this(jwtService, accessTokenRepo, meterRegistry, maximumSize, expireAfterWrite, expectedRevocations,
+                Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a new TokenRevocationService reading the time from the given clock.
+     *
+     * @param jwtService          Service used to parse tokens
+     * @param accessTokenRepo     Repository of the stored access tokens
+     * @param meterRegistry       Registry the cache metrics are published to
+     * @param maximumSize         Maximum number of known-valid tokens kept in memory
+     * @param expireAfterWrite    Time after which a known-valid token has to be checked against the database again
+     * @param expectedRevocations Expected number of simultaneously revoked tokens, used to size the Bloom filter
+     * @param clock               Clock the token expirations and cache entries are timed with
+     */
+    TokenRevocationService(
+            JwtService jwtService,
+            AccessTokenRepo accessTokenRepo,
+            MeterRegistry meterRegistry,
+            long maximumSize,
+            Duration expireAfterWrite,
+            int expectedRevocations,
+            Clock clock
+    ) {
+        this.jwtService = jwtService;
+        this.accessTokenRepo = accessTokenRepo;
+        this.expectedRevocations = expectedRevocations;
+        this.clock = clock;
+        this.lastPrunedAt = clock.millis();
+        this.startedAt = clock.millis() / 1000 * 1000;
+        this.revokedFilter = new BloomFilter(expectedRevocations, 0.01);
+        this.validTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String tokenId, Long expiresAt, long currentTime) {
+                        long untilExpiration = Math.max(0, expiresAt - clock.millis());
+                        return Math.min(expireAfterWrite.toNanos(), Duration.ofMillis(untilExpiration).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenId, Long expiresAt, long currentTime, long currentDuration) {
+                        return expireAfterCreate(tokenId, expiresAt, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenId, Long expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, validTokens, "access_tokens");
+        meterRegistry.gaugeMapSize("tokens.revoked.size", Tags.empty(), revokedTokens);
+        this.revokedFilterNegatives = meterRegistry.counter("tokens.revoked.lookups", "result", "filter_negative");
+        this.revokedFilterFalsePositives = meterRegistry.counter("tokens.revoked.lookups", "result", "false_positive");
+        this.revokedHits = meterRegistry.counter("tokens.revoked.lookups", "result", "revoked");
+    }
+
+    /**
+     * Checks if the token with the given id has been revoked.
+     *
+     * @param tokenId The id (jti claim) of the token
+     * @return True if the token has been revoked, false otherwise
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null)
+            return true;
+        if (!revokedFilter.mightContain(tokenId)) {
+            revokedFilterNegatives.increment();
+            return false;
+        }
+        if (revokedTokens.containsKey(tokenId)) {
+            revokedHits.increment();
+            return true;
+        }
+        revokedFilterFalsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Checks if the token has recently been confirmed valid, either on issue or against the database.
+     *
+     * @param claims The claims of the token
+     * @return True if the token is known to be valid, false otherwise
+     */
+    public boolean isKnownValid(TokenClaims claims) {
+        return claims.id() != null && validTokens.getIfPresent(claims.id()) != null;
+    }
+
+    /**
+     * Checks if the given issue date is after this instance was started. Revocations of tokens issued earlier
+     * are unknown to this instance, so such tokens must be checked against the database.
+     *
+     * @param issuedAt The issue date of the token
+     * @return True if the token was issued after startup, false otherwise
+     */
+    public boolean isIssuedAfterStartup(Date issuedAt) {
+        return issuedAt != null && issuedAt.getTime() > startedAt;
+    }
+
+    /**
+     * Remembers the token as valid until it expires or is revoked.
+     *
+     * @param claims The claims of the valid token
+     */
+    public void remember(TokenClaims claims) {
+        if (claims.id() != null && claims.expiration() != null)
+            validTokens.put(claims.id(), claims.expiration().getTime());
+    }
+
+    /**
+     * Revokes the given stored access token until it expires. Tokens stored without an expiration are kept
+     * revoked for the full access token lifetime. Tokens without an id are ignored, as they are always checked
+     * against the database.
+     *
+     * @param token The access token to revoke
+     */
+    public void revoke(AccessToken token) {
+        if (token.getTokenId() == null)
+            return;
+        long expiresAt = token.getExpiresAt() == null
+                ? clock.millis() + jwtService.getAccessTokenExpiration()
+                : token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        revoke(token.getTokenId(), expiresAt);
+    }
+
+    /**
+     * Revokes the token with the given id until the given time.
+     *
+     * @param tokenId   The id (jti claim) of the token
+     * @param expiresAt The time the token expires at, in epoch milliseconds
+     */
+    private void revoke(String tokenId, long expiresAt) {
+        validTokens.invalidate(tokenId);
+        synchronized (this) {
+            removeExpired();
+            revokedTokens.put(tokenId, expiresAt);
+            revokedFilter.put(tokenId);
+        }
+    }
+
+    /**
+     * Revokes all the given access tokens.
+     *
+     * @param tokens The access tokens to revoke
+     */
+    public void revokeAll(Collection<AccessToken> tokens) {
+        for (var token : tokens)
+            revoke(token);
+    }
+
+    /**
+     * Revokes and deletes all access tokens of the given user, terminating all of their sessions.
+     *
+     * @param userId The ID of the user
+     */
+    public void revokeAll(Long userId) {
+        var tokens = accessTokenRepo.findAllByUserId(userId);
+        revokeAll(tokens);
+        accessTokenRepo.deleteAll(tokens);
+    }
+
+    /**
+     * Removes revocations of tokens that have expired in the meantime, at most once per prune interval,
+     * and rebuilds the Bloom filter from the remaining revocations.
+     */
+    private void removeExpired() {
+        long now = clock.millis();
+        if (now - lastPrunedAt < PRUNE_INTERVAL)
+            return;
+        lastPrunedAt = now;
+        if (!revokedTokens.values().removeIf(expiresAt -> expiresAt < now))
+            return;
+
+        var filter = new BloomFilter(Math.max(expectedRevocations, revokedTokens.size()), 0.01);
+        revokedTokens.keySet().forEach(filter::put);
+        revokedFilter = filter;
+    }
+}
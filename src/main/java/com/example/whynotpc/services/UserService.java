@@ -15,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
@@ -40,18 +41,21 @@ public class UserService {
     private final OrderRepo orderRepo;
     private final PasswordEncoder passwordEncoder;
     private final ImageService imageService;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Retrieves a user from the provided authentication.
+     * The principal may be built from token claims only, so the user is loaded by its ID.
      *
      * @param authentication The authentication object.
      * @return user retrieved from the authentication.
-     * @throws NoAuthenticationException If the authentication object is null.
+     * @throws NoAuthenticationException If the authentication object is null or the user no longer exists.
      */
     private User getUserFromAuthentication(Authentication authentication) {
         if (authentication == null)
             throw new NoAuthenticationException();
-        return (User) authentication.getPrincipal();
+        var principal = (User) authentication.getPrincipal();
+        return userRepo.findById(principal.getId()).orElseThrow(NoAuthenticationException::new);
     }
 
     /**
@@ -62,6 +66,7 @@ public class UserService {
      * @return response containing the created user.
      * @throws IllegalArgumentException If any of the user properties are null or blank.
      */
+    @Transactional
     public UserResponse create(UserDTO userDTO, MultipartFile file) {
         Stream<String> values = Stream.of(userDTO.firstname(), userDTO.lastname(), userDTO.username(),
                 userDTO.email(), userDTO.password(), userDTO.role());
@@ -78,11 +83,8 @@ public class UserService {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        if (file != null) {
-            imageService.create(file);
-            String picName = Objects.requireNonNull(file.getOriginalFilename()).replace(' ', '_');
-            user.setProfilePicName(picName);
-        }
+        if (file != null)
+            user.setProfilePicName(imageService.attach(file));
         user = userRepo.save(user);
 
         orderRepo.save(Order.builder()
@@ -92,7 +94,7 @@ public class UserService {
                 .user(user)
                 .build());
 
-        return created(user);
+        return created(user, imageService::getVersion);
     }
 
     /**
@@ -101,7 +103,7 @@ public class UserService {
      * @return response containing all users.
      */
     public UserResponse readAll() {
-        return ok(userRepo.findAll());
+        return ok(userRepo.findAll(), imageService::getVersion);
     }
 
     /**
@@ -113,7 +115,7 @@ public class UserService {
      */
     public UserResponse read(Long id) {
         var user = userRepo.findById(id).orElseThrow(EntityNotFoundException::new);
-        return ok(user);
+        return ok(user, imageService::getVersion);
     }
 
     /**
@@ -125,7 +127,7 @@ public class UserService {
     public UserResponse read(Authentication authentication) {
         var user = getUserFromAuthentication(authentication);
 
-        return ok(user);
+        return ok(user, imageService::getVersion);
     }
 
     /**
@@ -159,10 +161,13 @@ public class UserService {
         if (!isNullOrBlank(newUser.lastname())) user.setLastname(newUser.lastname());
         if (!isNullOrBlank(newUser.email())) user.setEmail(newUser.email());
         if (!isNullOrBlank(newUser.password())) user.setPassword(passwordEncoder.encode(newUser.password()));
-        if (!isNullOrBlank(newUser.role())) user.setRole(Role.valueOf(newUser.role()));
+        if (!isNullOrBlank(newUser.role()) && user.getRole() != Role.valueOf(newUser.role())) {
+            user.setRole(Role.valueOf(newUser.role()));
+            tokenRevocationService.revokeAll(id);
+        }
         user = userRepo.save(user);
 
-        return ok(user);
+        return ok(user, imageService::getVersion);
     }
 
     /**
@@ -173,6 +178,7 @@ public class UserService {
      * @param file           The new profile picture file.
      * @return response containing the updated user.
      */
+    @Transactional
     public UserResponse update(Authentication authentication, UserDTO newUser, MultipartFile file) {
         var user = getUserFromAuthentication(authentication);
         if (newUser != null) {
@@ -181,17 +187,14 @@ public class UserService {
             if (!isNullOrBlank(newUser.email())) user.setEmail(newUser.email());
         }
 
-        if (file != null) {
-            var presentImage = imageService.read(user.getProfilePicName());
-
-            if (presentImage == null) imageService.create(file);
-            else imageService.update(file, presentImage.getName());
-
-            user.setProfilePicName(Objects.requireNonNull(file.getOriginalFilename()).replace(' ', '_'));
-        }
+        var oldProfilePicName = user.getProfilePicName();
+        if (file != null)
+            user.setProfilePicName(imageService.attach(file));
 
         user = update(user.getId(), user);
-        return ok(user);
+        if (!Objects.equals(oldProfilePicName, user.getProfilePicName()))
+            imageService.detach(oldProfilePicName);
+        return ok(user, imageService::getVersion);
     }
 
     /**
@@ -203,7 +206,9 @@ public class UserService {
      */
     public BasicResponse delete(Long id) {
         var user = userRepo.findById(id).orElseThrow(EntityNotFoundException::new);
+        tokenRevocationService.revokeAll(id);
         userRepo.delete(user);
+        imageService.detach(user.getProfilePicName());
 
         return noContent();
     }
@@ -0,0 +1,38 @@
+package com.example.whynotpc.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class for creating thread pools.
+ */
+public class ExecutorUtils {
+    /**
+     * Creates a fixed-size pool of daemon threads with a bounded queue.
+     *
+     * @param name             The prefix of the thread names, followed by the thread number.
+     * @param threads          The number of threads.
+     * @param queueCapacity    The maximum number of tasks waiting for a thread.
+     * @param rejectionHandler The handler of tasks submitted while the pool and its queue are full.
+     * @return the thread pool.
+     */
+    public static ThreadPoolExecutor newBoundedPool(
+            String name,
+            int threads,
+            int queueCapacity,
+            RejectedExecutionHandler rejectionHandler
+    ) {
+        var threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    var thread = new Thread(task, name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejectionHandler);
+    }
+}
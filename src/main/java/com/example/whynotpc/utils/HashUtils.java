@@ -0,0 +1,46 @@
+package com.example.whynotpc.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Utility class for computing fixed-width digests.
+ */
+public class HashUtils {
+    /**
+     * Computes the SHA-256 digest of the specified data.
+     *
+     * @param data The data to digest.
+     * @return lowercase hex-encoded digest, 64 characters long.
+     */
+    public static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(sha256().digest(data));
+    }
+
+    /**
+     * Computes the SHA-256 digest of the UTF-8 bytes of the specified string.
+     *
+     * @param value The string to digest.
+     * @return lowercase hex-encoded digest, 64 characters long, or null if the string is null.
+     */
+    public static String sha256Hex(String value) {
+        if (value == null)
+            return null;
+        return sha256Hex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a new SHA-256 message digest.
+     *
+     * @return SHA-256 message digest.
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.whynotpc.utils;
+
+import com.example.whynotpc.models.img.ImageCodec;
+import com.example.whynotpc.persistence.img.ImageStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * Moves image contents from the database into the image store upon startup.
+ * Rows still holding the legacy compressed image data column get their content stored and its digest,
+ * size and codec filled in, one row at a time, after which the legacy column is dropped.
+ * Compressible formats keep their already deflated data, all other formats are stored inflated.
+ * Does nothing once the legacy column is gone.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageStorageMigration implements CommandLineRunner {
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStore imageStore;
+
+    /**
+     * Runs the migration for the images table.
+     *
+     * @param args The command-line arguments passed to the application.
+     * @throws IOException         If an image cannot be stored.
+     * @throws DataFormatException If legacy image data cannot be decompressed.
+     */
+    @Override
+    public void run(String... args) throws IOException, DataFormatException {
+        var legacyColumns = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.columns where table_name = 'images' and column_name = 'image_data'",
+                Integer.class);
+        if (legacyColumns == null || legacyColumns == 0)
+            return;
+
+        var ids = jdbcTemplate.queryForList(
+                "select id from images where image_data is not null and content_hash is null", Long.class);
+        for (var id : ids) {
+            var row = jdbcTemplate.queryForMap("select type, image_data from images where id = ?", id);
+            var compressed = (byte[]) row.get("image_data");
+            var data = ImageUtils.decompressImage(compressed);
+            var header = Arrays.copyOf(data, Math.min(data.length, ImageUtils.HEADER_LENGTH));
+            var codec = ImageUtils.detectCodec(header, (String) row.get("type"));
+            var blob = imageStore.put(new ByteArrayInputStream(codec == ImageCodec.DEFLATE ? compressed : data));
+            jdbcTemplate.update("update images set content_hash = ?, content_length = ?, codec = ? where id = ?",
+                    blob.key(), data.length, codec.name(), id);
+        }
+        jdbcTemplate.execute("alter table images drop column image_data");
+    }
+}
@@ -1,15 +1,75 @@
 package com.example.whynotpc.utils;
 
+import com.example.whynotpc.models.img.ImageCodec;
+
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Utility class for compressing and decompressing image data.
  */
 public class ImageUtils {
+    /**
+     * The number of leading bytes needed to detect the image format.
+     */
+    public static final int HEADER_LENGTH = 16;
+
+    /**
+     * Chooses the codec for storing an image. Only formats known to compress well are deflated:
+     * uncompressed bitmaps (BMP, TIFF, ICO) and SVG. Everything else, including WEBP, JPEG, PNG and GIF,
+     * is already compressed and stored raw.
+     *
+     * @param header      The leading bytes of the image, up to {@link #HEADER_LENGTH}.
+     * @param contentType The declared content type of the image, may be null.
+     * @return codec to store the image with.
+     */
+    public static ImageCodec detectCodec(byte[] header, String contentType) {
+        if (startsWith(header, 'B', 'M')
+                || startsWith(header, 'I', 'I', 42, 0)
+                || startsWith(header, 'M', 'M', 0, 42)
+                || startsWith(header, 0, 0, 1, 0))
+            return ImageCodec.DEFLATE;
+        if ("image/svg+xml".equalsIgnoreCase(contentType))
+            return ImageCodec.DEFLATE;
+        var text = new String(header, StandardCharsets.US_ASCII).stripLeading();
+        if (text.startsWith("<svg") || text.startsWith("<?xml"))
+            return ImageCodec.DEFLATE;
+        return ImageCodec.RAW;
+    }
+
+    /**
+     * Wraps the stream of stored image content so that it yields the original content.
+     *
+     * @param stored The stream of the stored content.
+     * @param codec  The codec the content was stored with, null meaning RAW.
+     * @return stream of the original content.
+     */
+    public static InputStream decode(InputStream stored, ImageCodec codec) {
+        return codec == ImageCodec.DEFLATE ? new InflaterInputStream(stored) : stored;
+    }
+
+    /**
+     * Checks if the data starts with the given bytes.
+     *
+     * @param data   The data to check.
+     * @param prefix The expected leading bytes.
+     * @return true if the data starts with the prefix, false otherwise.
+     */
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++)
+            if (data[i] != (byte) prefix[i])
+                return false;
+        return true;
+    }
+
     /**
      * Compresses the specified image data using the Deflate algorithm with the best compression level.
      *
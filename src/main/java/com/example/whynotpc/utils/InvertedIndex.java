@@ -0,0 +1,483 @@
+package com.example.whynotpc.utils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe in-memory inverted index of short texts, such as product titles, searchable as they are typed:
+ * every query word must match a word of the text exactly, except the last one, which may be a prefix.
+ * Texts are split into lowercase alphanumeric words; a chunk joining words with punctuation, like the part
+ * number {@code SA400S37/480G}, is additionally indexed as a single word without the punctuation.
+ * <p>
+ * Each text gets an internal document number, assigned in increasing order, so posting lists stay sorted
+ * by appending. Removed documents are only marked dead, and posting lists are compacted once most documents
+ * are dead. Searches only hold a read lock, so they run concurrently with each other.
+ */
+public class InvertedIndex {
+    private static final int EXACT_SCORE = 2;
+    private static final int PREFIX_SCORE = 1;
+    private static final long MAX_LENGTH = 0x7FFF;
+    private static final long MAX_DOCUMENT = 0x7FFFFFFF;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> documents = new HashMap<>();
+    private long[] keys = new long[1024];
+    private int[] lengths = new int[1024];
+    private final BitSet dead = new BitSet();
+    private int deadCount;
+    private int documentCount;
+
+    /**
+     * Adds the text of the given key to the index, replacing any text previously added for the key.
+     *
+     * @param key  The key the text is found by, such as a product id.
+     * @param text The text to index.
+     */
+    public void put(long key, String text) {
+        var words = tokenize(text, true);
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            int document = documentCount++;
+            if (document == keys.length) {
+                keys = Arrays.copyOf(keys, document * 2);
+                lengths = Arrays.copyOf(lengths, document * 2);
+            }
+            keys[document] = key;
+            lengths[document] = words.size();
+            documents.put(key, document);
+            for (var word : new LinkedHashSet<>(words))
+                terms.computeIfAbsent(word, ignored -> new Postings()).add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the text of the given key from the index.
+     *
+     * @param key The key of the text.
+     */
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all texts from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            dead.clear();
+            deadCount = 0;
+            documentCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of texts in the index.
+     *
+     * @return number of indexed texts.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the keys of the texts containing every word of the query, the last one exactly or as a prefix
+     * of any length. Texts rank higher if they contain the last word exactly rather than as a prefix,
+     * then the fewer words they have, then the earlier they were indexed.
+     *
+     * @param query The search query.
+     * @param limit The maximum number of keys to find.
+     * @return keys of the best matching texts, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        var words = new ArrayList<>(new LinkedHashSet<>(tokenize(query, false)));
+        if (words.isEmpty() || limit <= 0)
+            return List.of();
+        lock.readLock().lock();
+        try {
+            var matches = new ArrayList<Match>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                var match = match(words.get(i), i == words.size() - 1);
+                if (match.size == 0)
+                    return List.of();
+                matches.add(match);
+            }
+            matches.sort(Comparator.comparingLong(match -> match.size));
+            return rank(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a text into lowercase alphanumeric words.
+     *
+     * @param text      The text to split.
+     * @param compounds Whether chunks of words joined by punctuation are also added as single words.
+     * @return list of words, in order of appearance.
+     */
+    public static List<String> tokenize(String text, boolean compounds) {
+        var words = new ArrayList<String>();
+        if (text == null)
+            return words;
+        for (var chunk : text.toLowerCase(Locale.ROOT).split("\\s+")) {
+            var parts = chunk.split("[^\\p{L}\\p{N}]+");
+            int count = 0;
+            for (var part : parts) {
+                if (!part.isEmpty()) {
+                    words.add(part);
+                    count++;
+                }
+            }
+            if (compounds && count > 1)
+                words.add(String.join("", parts));
+        }
+        return words;
+    }
+
+    /**
+     * Marks the document of the given key as dead, compacting the posting lists once most documents are dead.
+     * Must be called with the write lock held.
+     *
+     * @param key The key of the text.
+     */
+    private void removeLocked(long key) {
+        var document = documents.remove(key);
+        if (document == null)
+            return;
+        dead.set(document);
+        deadCount++;
+        if (deadCount > 1024 && deadCount > documents.size())
+            compact();
+    }
+
+    /**
+     * Renumbers the live documents consecutively and drops dead documents and empty terms.
+     * Must be called with the write lock held.
+     */
+    private void compact() {
+        var renumbered = new int[documentCount];
+        int live = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (dead.get(document)) {
+                renumbered[document] = -1;
+                continue;
+            }
+            renumbered[document] = live;
+            keys[live] = keys[document];
+            lengths[live] = lengths[document];
+            documents.put(keys[live], live);
+            live++;
+        }
+        documentCount = live;
+        dead.clear();
+        deadCount = 0;
+        terms.values().removeIf(postings -> postings.renumber(renumbered) == 0);
+    }
+
+    /**
+     * Collects the posting lists of the terms matching a query word, exactly or, if allowed, as a prefix.
+     * Prefixes are expanded to every term they start.
+     * Must be called with the read lock held.
+     *
+     * @param word   The query word.
+     * @param prefix Whether the word may match as a prefix.
+     * @return posting lists of the matching terms.
+     */
+    private Match match(String word, boolean prefix) {
+        var match = new Match(terms.get(word));
+        if (match.exact != null)
+            match.size += match.exact.size;
+        if (!prefix)
+            return match;
+        for (var postings : terms.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+            match.prefixed.add(postings);
+            match.size += postings.size;
+        }
+        return match;
+    }
+
+    /**
+     * Scores the documents matching every query word and keeps the best ones.
+     * Candidates are taken from the word with the fewest postings and checked against the others, skipping
+     * the checks for candidates that could not outrank the ones already kept.
+     * Must be called with the read lock held.
+     *
+     * @param matches The posting lists of every query word, the smallest first.
+     * @param limit   The maximum number of keys to find.
+     * @return keys of the best matching documents, best first.
+     */
+    private List<Long> rank(List<Match> matches, int limit) {
+        var best = new TopRanks(limit);
+        var first = matches.get(0);
+        int otherMax = EXACT_SCORE * (matches.size() - 1);
+        var seen = new BitSet(documentCount);
+        var all = first.all();
+        for (int list = 0; list < all.size(); list++) {
+            var postings = all.get(list);
+            int firstScore = list == 0 && first.exact != null ? EXACT_SCORE : PREFIX_SCORE;
+            for (int i = 0; i < postings.size; i++) {
+                int document = postings.documents[i];
+                if (dead.get(document) || seen.get(document))
+                    continue;
+                seen.set(document);
+                if (!best.accepts(rank(document, firstScore + otherMax)))
+                    continue;
+                int score = firstScore;
+                for (int m = 1; m < matches.size() && score > 0; m++) {
+                    int matchScore = matches.get(m).score(document);
+                    score = matchScore == 0 ? 0 : score + matchScore;
+                }
+                if (score > 0)
+                    best.offer(rank(document, score));
+            }
+        }
+
+        var ranks = best.sorted();
+        var result = new ArrayList<Long>(ranks.length);
+        for (int i = ranks.length - 1; i >= 0; i--)
+            result.add(keys[(int) (MAX_DOCUMENT - (ranks[i] & MAX_DOCUMENT))]);
+        return result;
+    }
+
+    /**
+     * Packs the ranking criteria of a document into a single number, higher ranking better:
+     * the score, then the fewer words, then the earlier indexed document.
+     *
+     * @param document The document number.
+     * @param score    The score of the document.
+     * @return rank of the document.
+     */
+    private long rank(int document, int score) {
+        long length = Math.min(lengths[document], MAX_LENGTH);
+        return (long) score << 46 | (MAX_LENGTH - length) << 31 | (MAX_DOCUMENT - document);
+    }
+
+    /**
+     * Bounded min-heap of the highest ranks offered.
+     */
+    private static class TopRanks {
+        private final long[] heap;
+        private int size;
+
+        /**
+         * Constructs a new TopRanks keeping the given number of ranks.
+         *
+         * @param limit The number of ranks to keep.
+         */
+        private TopRanks(int limit) {
+            this.heap = new long[limit];
+        }
+
+        /**
+         * Checks if a rank would be kept if offered.
+         *
+         * @param rank The rank.
+         * @return true if the rank is higher than the lowest kept or there is room left, false otherwise.
+         */
+        private boolean accepts(long rank) {
+            return size < heap.length || rank > heap[0];
+        }
+
+        /**
+         * Keeps the rank if it is among the highest offered so far.
+         *
+         * @param rank The rank.
+         */
+        private void offer(long rank) {
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && heap[(i - 1) / 2] > rank) {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = rank;
+            } else if (rank > heap[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size)
+                        break;
+                    if (child + 1 < size && heap[child + 1] < heap[child])
+                        child++;
+                    if (heap[child] >= rank)
+                        break;
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = rank;
+            }
+        }
+
+        /**
+         * Retrieves the kept ranks.
+         *
+         * @return kept ranks in ascending order.
+         */
+        private long[] sorted() {
+            var ranks = Arrays.copyOf(heap, size);
+            Arrays.sort(ranks);
+            return ranks;
+        }
+    }
+
+    /**
+     * Posting lists of the terms matching a query word.
+     */
+    private static class Match {
+        private static final int MAX_SEARCHED_LISTS = 16;
+
+        private final Postings exact;
+        private final List<Postings> prefixed = new ArrayList<>();
+        private BitSet prefixedDocuments;
+        private long size;
+        private int lastDocument = -1;
+        private int exactFrom;
+        private int[] prefixedFrom;
+
+        /**
+         * Constructs a new Match.
+         *
+         * @param exact The posting list of the word itself, or null if no text contains it.
+         */
+        private Match(Postings exact) {
+            this.exact = exact;
+        }
+
+        /**
+         * Retrieves all posting lists of the match.
+         *
+         * @return exact posting list, if any, followed by the prefixed ones.
+         */
+        private List<Postings> all() {
+            if (exact == null)
+                return prefixed;
+            var all = new ArrayList<Postings>(prefixed.size() + 1);
+            all.add(exact);
+            all.addAll(prefixed);
+            return all;
+        }
+
+        /**
+         * Scores how the document matches the query word. Documents scored in increasing order are searched
+         * for from where the previous one was found. Prefixes expanded to many terms are checked against
+         * a bit set of their documents instead, gathered on the first check.
+         *
+         * @param document The document number.
+         * @return 2 for an exact match, 1 for a prefix match, 0 if the document does not match.
+         */
+        private int score(int document) {
+            if (prefixedFrom == null)
+                prefixedFrom = new int[Math.min(prefixed.size(), MAX_SEARCHED_LISTS)];
+            if (document < lastDocument) {
+                exactFrom = 0;
+                Arrays.fill(prefixedFrom, 0);
+            }
+            lastDocument = document;
+            if (exact != null) {
+                int position = exact.find(document, exactFrom);
+                exactFrom = position < 0 ? -position - 1 : position;
+                if (position >= 0)
+                    return EXACT_SCORE;
+            }
+            if (prefixed.size() <= MAX_SEARCHED_LISTS) {
+                int score = 0;
+                for (int i = 0; i < prefixed.size(); i++) {
+                    int position = prefixed.get(i).find(document, prefixedFrom[i]);
+                    prefixedFrom[i] = position < 0 ? -position - 1 : position;
+                    if (position >= 0)
+                        score = PREFIX_SCORE;
+                }
+                return score;
+            }
+            if (prefixedDocuments == null) {
+                prefixedDocuments = new BitSet();
+                for (var postings : prefixed)
+                    postings.addTo(prefixedDocuments);
+            }
+            return prefixedDocuments.get(document) ? PREFIX_SCORE : 0;
+        }
+    }
+
+    /**
+     * Sorted list of the numbers of the documents containing a term.
+     */
+    private static class Postings {
+        private int[] documents = new int[2];
+        private int size;
+
+        /**
+         * Appends a document, which must be numbered higher than all documents already in the list.
+         *
+         * @param document The document number.
+         */
+        private void add(int document) {
+            if (size == documents.length)
+                documents = Arrays.copyOf(documents, size * 2);
+            documents[size++] = document;
+        }
+
+        /**
+         * Finds the position of the document, galloping from a position before it, so that finding documents
+         * in increasing order costs the logarithm of the distance between them rather than of the list size.
+         *
+         * @param document The document number.
+         * @param from     A position no further than the document's.
+         * @return position of the document, or (-(insertion point) - 1) if the list does not contain it.
+         */
+        private int find(int document, int from) {
+            int low = from;
+            int step = 1;
+            while (low + step < size && documents[low + step] < document) {
+                low += step;
+                step <<= 1;
+            }
+            return Arrays.binarySearch(documents, low, Math.min(low + step + 1, size), document);
+        }
+
+        /**
+         * Adds the documents to the bit set.
+         *
+         * @param set The bit set.
+         */
+        private void addTo(BitSet set) {
+            for (int i = 0; i < size; i++)
+                set.set(documents[i]);
+        }
+
+        /**
+         * Renumbers the documents, dropping the removed ones.
+         *
+         * @param renumbered The new number of every document, -1 for removed documents.
+         * @return number of documents left.
+         */
+        private int renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int document = renumbered[documents[i]];
+                if (document >= 0)
+                    documents[kept++] = document;
+            }
+            size = kept;
+            return size;
+        }
+    }
+}
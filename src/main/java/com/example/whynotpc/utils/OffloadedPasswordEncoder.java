@@ -0,0 +1,135 @@
+package com.example.whynotpc.utils;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+/**
+ * Password encoder running BCrypt hashing on a dedicated bounded thread pool, so that hashing spikes
+ * cannot occupy more CPU than the pool allows. When the pool and its queue are full, hashing is rejected
+ * immediately with a {@link TooManyRequestsException} instead of piling up request threads.
+ */
+public class OffloadedPasswordEncoder implements PasswordEncoder {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+    private static final int CALIBRATION_RUNS = 5;
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructs a new OffloadedPasswordEncoder.
+     *
+     * @param strength      The BCrypt cost factor used for new hashes.
+     * @param threads       The number of hashing threads.
+     * @param queueCapacity The maximum number of hashing tasks waiting for a thread.
+     */
+    public OffloadedPasswordEncoder(int strength, int threads, int queueCapacity) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.executor = ExecutorUtils.newBoundedPool("password-hashing", threads, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Finds the highest BCrypt cost factor whose hashing time on this host stays within the given budget.
+     * Hashing is warmed up first, and each cost factor is timed by the median of several runs, so that
+     * neither JIT compilation nor a single slow run skews the result.
+     * The result is never lower than the BCrypt default of 10.
+     *
+     * @param budget The target hashing latency.
+     * @return calibrated cost factor.
+     */
+    public static int calibrateStrength(Duration budget) {
+        new BCryptPasswordEncoder(MIN_STRENGTH).encode("calibration");
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && medianHashingTime(strength + 1) <= budget.toNanos())
+            strength++;
+        return strength;
+    }
+
+    /**
+     * Measures the median time of hashing with the given cost factor.
+     *
+     * @param strength The BCrypt cost factor.
+     * @return median hashing time in nanoseconds.
+     */
+    private static long medianHashingTime(int strength) {
+        var encoder = new BCryptPasswordEncoder(strength);
+        var times = new long[CALIBRATION_RUNS];
+        for (int i = 0; i < times.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks if the encoded password was hashed with a lower cost factor than the current one,
+     * so that it is rehashed upon the next successful login. Hashes with a higher cost factor are kept,
+     * so that calibrating on a faster host never weakens them.
+     *
+     * @param encodedPassword The encoded password.
+     * @return true if the password should be rehashed, false otherwise.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty())
+            return false;
+        var matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs the task on the hashing pool and waits for its result.
+     *
+     * @param task The hashing task.
+     * @param <T>  The type of the result.
+     * @return result of the task.
+     * @throws TooManyRequestsException If the hashing pool is saturated.
+     */
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Password hashing capacity exceeded");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
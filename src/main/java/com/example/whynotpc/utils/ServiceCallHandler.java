@@ -2,7 +2,11 @@ package com.example.whynotpc.utils;
 
 import com.example.whynotpc.models.response.AuthResponse;
 import com.example.whynotpc.models.response.BasicResponse;
+import com.example.whynotpc.models.response.EncodedResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.util.function.Supplier;
@@ -33,4 +37,46 @@ public class ServiceCallHandler {
 
         return ResponseEntity.status(status).build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves an encoded response from a supplier and generates a ResponseEntity sending its JSON body as is,
+     * gzip-compressed if the client accepts it. The entity tag lets Spring answer a matching
+     * If-None-Match request with 304 and no body.
+     *
+     * @param supplier       the supplier providing the encoded response
+     * @param acceptEncoding the Accept-Encoding header of the request, may be null
+     * @return ResponseEntity representing the response
+     */
+    public static ResponseEntity<byte[]> getEncodedResponse(Supplier<EncodedResponse> supplier, String acceptEncoding) {
+        var response = supplier.get();
+        boolean gzipped = acceptsGzip(acceptEncoding) && response.gzip().length < response.json().length;
+        var builder = ResponseEntity.status(response.statusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .eTag(response.etag(gzipped));
+        if (gzipped)
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return builder.body(gzipped ? response.gzip() : response.json());
+    }
+
+    /**
+     * Checks if the Accept-Encoding header accepts gzip.
+     *
+     * @param acceptEncoding the Accept-Encoding header, may be null
+     * @return true if gzip is accepted, false otherwise
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (var coding : acceptEncoding.split(",")) {
+            var parts = coding.split(";");
+            var name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*"))
+                continue;
+            boolean rejected = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+            return !rejected;
+        }
+        return false;
+    }
+}
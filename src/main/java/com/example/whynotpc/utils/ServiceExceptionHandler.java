@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -63,6 +64,28 @@ public class ServiceExceptionHandler {
         System.out.println(ex.toString());
     }
 
+    /**
+     * Handles TooManyRequestsException exceptions with a HTTP status code of TOO_MANY_REQUESTS (429).
+     *
+     * @param ex the exception to handle
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(TOO_MANY_REQUESTS)
+    public void handleTooManyRequestsException(TooManyRequestsException ex) {
+        System.out.println(ex.toString());
+    }
+
+    /**
+     * Handles MaxUploadSizeExceededException exceptions with a HTTP status code of PAYLOAD_TOO_LARGE (413).
+     *
+     * @param ex the exception to handle
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    @ResponseStatus(PAYLOAD_TOO_LARGE)
+    public void handleMaxUploadSizeExceededException(MaxUploadSizeExceededException ex) {
+        System.out.println(ex.toString());
+    }
+
     /**
      * Handles RuntimeException exceptions with a HTTP status code of INTERNAL_SERVER_ERROR (500).
      *
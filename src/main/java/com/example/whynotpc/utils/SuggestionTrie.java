@@ -0,0 +1,440 @@
+package com.example.whynotpc.utils;
+
+import java.util.*;
+
+/**
+ * Radix trie of suggestion texts, answering prefix lookups with the most popular suggestions below the prefix.
+ * Every node keeps its own top suggestions as an immutable list, so a lookup only walks the prefix, compares
+ * characters case-insensitively and returns a list built at write time, without allocating anything.
+ * <p>
+ * Lookups take no lock: writers never change a node's edge label, and publish every change by replacing
+ * a child array or a list, so readers always see a consistent node. Writes are serialized on the trie's monitor,
+ * and update the top suggestions of the nodes along the written path only; callers synchronizing on the trie
+ * can make a sequence of writes atomic. Nodes with a single source of suggestions share
+ * its top list instead of holding their own.
+ */
+public class SuggestionTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparing(Suggestion::text)
+            .thenComparing(Suggestion::type)
+            .thenComparingLong(Suggestion::id);
+
+    private final int size;
+    private final Node root = new Node("");
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+
+    /**
+     * Constructs a new empty SuggestionTrie.
+     *
+     * @param size The maximum number of suggestions returned per lookup.
+     */
+    public SuggestionTrie(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Builds a trie holding the given suggestions, computing the top suggestions of every node once at the end.
+     *
+     * @param size        The maximum number of suggestions returned per lookup.
+     * @param suggestions The suggestions to add.
+     * @return trie holding the suggestions.
+     */
+    public static SuggestionTrie of(int size, Collection<Suggestion> suggestions) {
+        var trie = new SuggestionTrie(size);
+        synchronized (trie) {
+            for (var suggestion : suggestions) {
+                var previous = trie.suggestions.put(key(suggestion.type(), suggestion.id()), suggestion);
+                if (previous != null)
+                    trie.detach(previous, new ArrayList<>());
+                trie.attach(suggestion, new ArrayList<>());
+            }
+            trie.rankAll(trie.root);
+        }
+        return trie;
+    }
+
+    /**
+     * Finds the most popular suggestions whose text starts with the prefix, ignoring case.
+     *
+     * @param prefix The prefix typed so far.
+     * @return unmodifiable list of suggestions, most popular first.
+     */
+    public List<Suggestion> suggest(CharSequence prefix) {
+        var node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            node = node.child(Character.toLowerCase(prefix.charAt(i)));
+            if (node == null)
+                return List.of();
+            var label = node.label;
+            for (int j = 0; j < label.length() && i < prefix.length(); j++, i++) {
+                if (label.charAt(j) != Character.toLowerCase(prefix.charAt(i)))
+                    return List.of();
+            }
+        }
+        return node.top;
+    }
+
+    /**
+     * Retrieves the number of suggestions in the trie.
+     *
+     * @return number of suggestions.
+     */
+    public synchronized int size() {
+        return suggestions.size();
+    }
+
+    /**
+     * Retrieves the suggestion of the given type and id.
+     *
+     * @param type The type of the suggested item.
+     * @param id   The id of the suggested item.
+     * @return suggestion, or null if not found.
+     */
+    public synchronized Suggestion get(String type, long id) {
+        return suggestions.get(key(type, id));
+    }
+
+    /**
+     * Adds a suggestion, or replaces the suggestion of the same type and id.
+     *
+     * @param suggestion The suggestion.
+     */
+    public synchronized void put(Suggestion suggestion) {
+        var previous = suggestions.put(key(suggestion.type(), suggestion.id()), suggestion);
+        if (previous != null && normalize(previous.text()).equals(normalize(suggestion.text()))) {
+            rank(replace(previous, suggestion, new ArrayList<>()));
+            return;
+        }
+        if (previous != null)
+            rank(detach(previous, new ArrayList<>()));
+        rank(attach(suggestion, new ArrayList<>()));
+    }
+
+    /**
+     * Adds a suggestion with the given text, keeping the popularity of the suggestion it replaces, if any.
+     *
+     * @param type The type of the suggested item.
+     * @param id   The id of the suggested item.
+     * @param text The text of the suggestion.
+     */
+    public synchronized void put(String type, long id, String text) {
+        var previous = suggestions.get(key(type, id));
+        put(new Suggestion(type, id, text, previous == null ? 0 : previous.weight()));
+    }
+
+    /**
+     * Adds to the popularity of the suggestion of the given type and id, if found.
+     *
+     * @param type  The type of the suggested item.
+     * @param id    The id of the suggested item.
+     * @param delta The popularity to add.
+     */
+    public synchronized void addWeight(String type, long id, long delta) {
+        var previous = suggestions.get(key(type, id));
+        if (previous != null)
+            put(new Suggestion(type, id, previous.text(), previous.weight() + delta));
+    }
+
+    /**
+     * Removes the suggestion of the given type and id.
+     *
+     * @param type The type of the suggested item.
+     * @param id   The id of the suggested item.
+     */
+    public synchronized void remove(String type, long id) {
+        var previous = suggestions.remove(key(type, id));
+        if (previous != null)
+            rank(detach(previous, new ArrayList<>()));
+    }
+
+    /**
+     * Builds the key a suggestion is found by.
+     *
+     * @param type The type of the suggested item.
+     * @param id   The id of the suggested item.
+     * @return key of the suggestion.
+     */
+    private static String key(String type, long id) {
+        return type + ':' + id;
+    }
+
+    /**
+     * Lowercases the text the same way lookups lowercase prefixes.
+     *
+     * @param text The text.
+     * @return lowercase text.
+     */
+    private static String normalize(String text) {
+        var chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = Character.toLowerCase(chars[i]);
+        return new String(chars);
+    }
+
+    /**
+     * Adds the suggestion to the node of its text, creating or splitting nodes as needed.
+     * Must be called while holding the trie lock.
+     *
+     * @param suggestion The suggestion.
+     * @param path       The list the nodes from the root to the node of the text are added to.
+     * @return the path.
+     */
+    private List<Node> attach(Suggestion suggestion, List<Node> path) {
+        var text = normalize(suggestion.text());
+        var node = root;
+        path.add(node);
+        int i = 0;
+        while (i < text.length()) {
+            var child = node.child(text.charAt(i));
+            if (child == null) {
+                child = new Node(text.substring(i));
+                child.terminals = List.of(suggestion);
+                child.top = child.terminals;
+                node.addChild(child);
+                path.add(child);
+                return path;
+            }
+            int common = 0;
+            while (common < child.label.length() && i + common < text.length()
+                    && child.label.charAt(common) == text.charAt(i + common))
+                common++;
+            if (common < child.label.length())
+                child = node.split(child, common);
+            i += common;
+            node = child;
+            path.add(node);
+        }
+        var terminals = new ArrayList<>(node.terminals);
+        terminals.add(suggestion);
+        node.terminals = List.copyOf(terminals);
+        return path;
+    }
+
+    /**
+     * Finds the node of a text.
+     * Must be called while holding the trie lock.
+     *
+     * @param text The lowercase text.
+     * @param path The list the nodes from the root to the node of the text are added to.
+     * @return node of the text, or null if not found.
+     */
+    private Node find(String text, List<Node> path) {
+        var node = root;
+        path.add(node);
+        int i = 0;
+        while (i < text.length()) {
+            node = node.child(text.charAt(i));
+            if (node == null || !text.startsWith(node.label, i))
+                return null;
+            i += node.label.length();
+            path.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * Removes the suggestion from the node of its text, dropping nodes left without suggestions.
+     * Must be called while holding the trie lock.
+     *
+     * @param suggestion The suggestion.
+     * @param path       The list the nodes from the root to the node of the text are added to.
+     * @return the path, without the dropped nodes.
+     */
+    private List<Node> detach(Suggestion suggestion, List<Node> path) {
+        var node = find(normalize(suggestion.text()), path);
+        if (node == null)
+            return path;
+        var terminals = new ArrayList<>(node.terminals);
+        terminals.remove(suggestion);
+        node.terminals = List.copyOf(terminals);
+        for (int last = path.size() - 1; last > 0; last--) {
+            var empty = path.get(last);
+            if (!empty.terminals.isEmpty() || empty.children.length > 0)
+                break;
+            path.get(last - 1).removeChild(empty);
+            path.remove(last);
+        }
+        return path;
+    }
+
+    /**
+     * Replaces a suggestion by one with the same text, in place.
+     * Must be called while holding the trie lock.
+     *
+     * @param previous   The suggestion to replace.
+     * @param suggestion The suggestion replacing it.
+     * @param path       The list the nodes from the root to the node of the text are added to.
+     * @return the path.
+     */
+    private List<Node> replace(Suggestion previous, Suggestion suggestion, List<Node> path) {
+        var node = find(normalize(previous.text()), path);
+        if (node == null)
+            return path;
+        var terminals = new ArrayList<>(node.terminals);
+        terminals.replaceAll(terminal -> terminal == previous ? suggestion : terminal);
+        node.terminals = List.copyOf(terminals);
+        return path;
+    }
+
+    /**
+     * Updates the top suggestions of the nodes along the path, from the deepest one up.
+     * Must be called while holding the trie lock.
+     *
+     * @param path The nodes from the root down.
+     */
+    private void rank(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--)
+            path.get(i).top = topOf(path.get(i));
+    }
+
+    /**
+     * Updates the top suggestions of the node and of all nodes below it.
+     * Must be called while holding the trie lock.
+     *
+     * @param node The node.
+     */
+    private void rankAll(Node node) {
+        for (var child : node.children)
+            rankAll(child);
+        node.top = topOf(node);
+    }
+
+    /**
+     * Computes the top suggestions of a node by merging its own suggestions with the top suggestions
+     * of its children, which are already ranked.
+     *
+     * @param node The node.
+     * @return unmodifiable list of the top suggestions.
+     */
+    private List<Suggestion> topOf(Node node) {
+        var children = node.children;
+        if (children.length == 0 && node.terminals.size() <= 1)
+            return node.terminals;
+        if (children.length == 1 && node.terminals.isEmpty())
+            return children[0].top;
+        var terminals = new ArrayList<>(node.terminals);
+        terminals.sort(RANKING);
+        var sources = new ArrayList<List<Suggestion>>(children.length + 1);
+        sources.add(terminals);
+        for (var child : children)
+            sources.add(child.top);
+        var heads = new int[sources.size()];
+        var top = new ArrayList<Suggestion>(size);
+        while (top.size() < size) {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] < sources.get(i).size() && (best < 0
+                        || RANKING.compare(sources.get(i).get(heads[i]), sources.get(best).get(heads[best])) < 0))
+                    best = i;
+            }
+            if (best < 0)
+                break;
+            top.add(sources.get(best).get(heads[best]++));
+        }
+        return List.copyOf(top);
+    }
+
+    /**
+     * Suggestion of an item.
+     *
+     * @param type   The type of the suggested item, such as "product" or "category".
+     * @param id     The id of the suggested item.
+     * @param text   The text suggested.
+     * @param weight The popularity of the item.
+     */
+    public record Suggestion(String type, long id, String text, long weight) {
+    }
+
+    /**
+     * Node of the trie, reached from its parent through its edge label.
+     */
+    private static final class Node {
+        private final String label;
+        private volatile Node[] children = NO_CHILDREN;
+        private volatile List<Suggestion> terminals = List.of();
+        private volatile List<Suggestion> top = List.of();
+
+        /**
+         * Constructs a new Node.
+         *
+         * @param label The edge label from the parent, never empty except for the root.
+         */
+        private Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Finds the child whose edge label starts with the given character.
+         *
+         * @param first The first character of the edge label.
+         * @return child, or null if not found.
+         */
+        private Node child(char first) {
+            var children = this.children;
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char c = children[middle].label.charAt(0);
+                if (c < first)
+                    low = middle + 1;
+                else if (c > first)
+                    high = middle - 1;
+                else
+                    return children[middle];
+            }
+            return null;
+        }
+
+        /**
+         * Adds a child, keeping the children sorted by the first character of their edge label.
+         *
+         * @param child The child.
+         */
+        private void addChild(Node child) {
+            var children = Arrays.copyOf(this.children, this.children.length + 1);
+            int i = children.length - 1;
+            while (i > 0 && children[i - 1].label.charAt(0) > child.label.charAt(0)) {
+                children[i] = children[i - 1];
+                i--;
+            }
+            children[i] = child;
+            this.children = children;
+        }
+
+        /**
+         * Removes a child.
+         *
+         * @param child The child.
+         */
+        private void removeChild(Node child) {
+            var children = new ArrayList<>(Arrays.asList(this.children));
+            children.remove(child);
+            this.children = children.toArray(NO_CHILDREN);
+        }
+
+        /**
+         * Replaces a child by a new node holding the first part of its edge label, above a copy of the child
+         * holding the rest of it. The child itself is left unchanged for lookups still walking through it.
+         *
+         * @param child  The child.
+         * @param length The length of the first part of the edge label.
+         * @return new node holding the first part of the edge label.
+         */
+        private Node split(Node child, int length) {
+            var lower = new Node(child.label.substring(length));
+            lower.children = child.children;
+            lower.terminals = child.terminals;
+            lower.top = child.top;
+            var upper = new Node(child.label.substring(0, length));
+            upper.children = new Node[]{lower};
+            upper.top = child.top;
+            var children = this.children.clone();
+            children[Arrays.asList(children).indexOf(child)] = upper;
+            this.children = children;
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.whynotpc.utils;
+
+import com.example.whynotpc.services.JwtService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import static com.example.whynotpc.utils.HashUtils.sha256Hex;
+
+/**
+ * Migrates stored tokens from full JWT strings to their digests upon startup.
+ * Rows still holding the legacy token column get their token hash and expiration filled in,
+ * after which the legacy column is dropped.
+ * Does nothing once the legacy column is gone.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenStorageMigration implements CommandLineRunner {
+    private static final List<String> TABLES = List.of("access_tokens", "refresh_tokens");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtService jwtService;
+
+    /**
+     * Runs the migration for the access and refresh token tables.
+     *
+     * @param args The command-line arguments passed to the application.
+     */
+    @Override
+    @Transactional
+    public void run(String... args) {
+        TABLES.forEach(this::migrate);
+    }
+
+    /**
+     * Migrates the stored tokens of the given table.
+     *
+     * @param table The name of the token table.
+     */
+    private void migrate(String table) {
+        var legacyColumns = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.columns where table_name = ? and column_name = 'token'",
+                Integer.class, table);
+        if (legacyColumns == null || legacyColumns == 0)
+            return;
+
+        var rows = jdbcTemplate.query(
+                "select id, token from " + table + " where token is not null and token_hash is null",
+                (rs, rowNum) -> new Object[]{
+                        sha256Hex(rs.getString("token")), getExpiration(rs.getString("token")), rs.getLong("id")});
+        jdbcTemplate.batchUpdate("update " + table + " set token_hash = ?, expires_at = ? where id = ?", rows);
+        jdbcTemplate.execute("alter table " + table + " drop column token");
+    }
+
+    /**
+     * Retrieves the expiration of a legacy token, even if it has already expired.
+     *
+     * @param jwt The legacy token string.
+     * @return expiration of the token, or null if the token cannot be verified.
+     */
+    private Timestamp getExpiration(String jwt) {
+        Date expiration;
+        try {
+            expiration = jwtService.validate(jwt).expiration();
+        } catch (ExpiredJwtException e) {
+            expiration = e.getClaims().getExpiration();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        return expiration == null ? null : new Timestamp(expiration.getTime());
+    }
+}
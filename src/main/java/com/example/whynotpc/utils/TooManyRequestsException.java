@@ -0,0 +1,27 @@
+package com.example.whynotpc.utils;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown to indicate that a request cannot be served right now because a bounded resource is saturated.
+ */
+public class TooManyRequestsException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new {@code TooManyRequestsException} with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the {@link #getMessage()} method)
+     */
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new {@code TooManyRequestsException} with a default detail message.
+     */
+    public TooManyRequestsException() {
+        this("Too many requests");
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.whynotpc.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utility class for keeping in-memory state in step with transactional writes.
+ */
+public class TransactionUtils {
+    /**
+     * Runs the action once the current transaction commits, or right away outside of a transaction.
+     * Actions of a transaction rolled back are dropped, so in-memory state never reflects rolled back writes.
+     *
+     * @param action The action to run.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
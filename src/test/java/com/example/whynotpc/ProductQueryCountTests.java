@@ -0,0 +1,147 @@
+package com.example.whynotpc;
+
+import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.models.product.Category;
+import com.example.whynotpc.models.product.Product;
+import com.example.whynotpc.persistence.img.ImageRepo;
+import com.example.whynotpc.persistence.products.CategoryRepo;
+import com.example.whynotpc.persistence.products.ProductRepo;
+import com.example.whynotpc.services.CatalogCacheService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-query-count;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "application.images.store.root=build/test-images",
+        "application.images.variants.root=build/test-images/variants",
+        "spring.mail.host=localhost",
+        "spring.mail.username=test@example.com",
+        "application.security.jwt.secret-key=2Yv8cJ0aN5qR3tW6zB9eH2kM5pS8vY1bE4hK7nQ0tW3zC6fJ9mP2sV5yB8eH1kN4",
+        "application.security.jwt.expiration=86400000",
+        "application.security.jwt.refresh-token.expiration=604800000"
+})
+@AutoConfigureMockMvc
+class ProductQueryCountTests {
+    private static final int PRODUCTS = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private CategoryRepo categoryRepo;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private ImageRepo imageRepo;
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    private Statistics statistics;
+    private Category category;
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+    private Image image;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var prefix = UUID.randomUUID().toString();
+        image = imageRepo.save(Image.builder().name(prefix + ".webp").type("image/webp").contentHash("0".repeat(64))
+                .build());
+        category = categoryRepo.save(Category.builder().name(prefix).build());
+        var other = categoryRepo.save(Category.builder().name(prefix + "-other").build());
+        categories.addAll(List.of(category, other));
+        for (int i = 0; i < PRODUCTS; i++)
+            products.add(productRepo.save(Product.builder()
+                    .title(prefix + "-" + i)
+                    .price(BigDecimal.valueOf(i))
+                    .category(i % 2 == 0 ? category : other)
+                    .imgName(i == 0 ? image.getName() : null)
+                    .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepo.deleteAll(products);
+        categoryRepo.deleteAll(categories);
+        imageRepo.delete(image);
+        catalogCacheService.invalidateAll();
+    }
+
+    @Test
+    void listingAllProductsRunsOneQuery() throws Exception {
+        assertQueries("/api/products", 1);
+    }
+
+    @Test
+    void listingCategoryRunsCategoryAndProductQueries() throws Exception {
+        assertQueries("/api/products?category=" + category.getName(), 2);
+    }
+
+    @Test
+    void pagingCategoryRunsCategoryPageAndCountQueries() throws Exception {
+        assertQueries("/api/products?category=" + category.getName() + "&page=0&sort=price", 3);
+    }
+
+    @Test
+    void seekingRunsOneQueryPerPage() throws Exception {
+        assertQueries("/api/products?cursor=&sort=price", 1);
+    }
+
+    @Test
+    void seekingCategoryRunsCategoryAndProductQueries() throws Exception {
+        assertQueries("/api/products?cursor=&category=" + category.getName(), 2);
+    }
+
+    @Test
+    void readingProductRunsOneQuery() throws Exception {
+        assertQueries("/api/products/" + products.get(0).getId(), 1);
+    }
+
+    @Test
+    void readingProductReadsImageVersionInSameQuery() throws Exception {
+        var uri = "/api/products/" + products.get(0).getId();
+
+        assertQueries(uri, 1);
+        mockMvc.perform(get(uri))
+                .andExpect(jsonPath("$.products[0].imgName").value(image.getName()))
+                .andExpect(jsonPath("$.products[0].imgVersion").value(image.getContentHash()));
+    }
+
+    /**
+     * Requests the URI with an empty catalog cache and checks the number of statements run.
+     *
+     * @param uri      The URI to request
+     * @param expected The expected number of statements
+     * @throws Exception If the request fails
+     */
+    private void assertQueries(String uri, long expected) throws Exception {
+        catalogCacheService.invalidateAll();
+        statistics.clear();
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).as("statements run by GET " + uri).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.whynotpc.controllers;
+
+import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.services.ImageIngestService;
+import com.example.whynotpc.services.ImageService;
+import com.example.whynotpc.services.ImageVariantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.*;
+
+class ImageControllerTests {
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private ImageService imageService;
+    private ImageController imageController;
+    private Image image;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageService = mock(ImageService.class);
+        imageController = new ImageController(imageService, mock(ImageVariantService.class),
+                mock(ImageIngestService.class));
+        image = Image.builder()
+                .name("cpu.png")
+                .type("image/png")
+                .contentHash("abc")
+                .contentLength((long) CONTENT.length)
+                .updatedAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build();
+        when(imageService.getImage("cpu.png")).thenReturn(image);
+        when(imageService.getImageFile(any())).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            int position = (int) (long) invocation.getArgument(1, Long.class);
+            long count = invocation.getArgument(2, Long.class);
+            int end = (int) Math.min(CONTENT.length, position + count);
+            invocation.getArgument(3, OutputStream.class).write(Arrays.copyOfRange(CONTENT, position, end));
+            return null;
+        }).when(imageService).writeImage(any(), anyLong(), anyLong(), any());
+    }
+
+    /**
+     * Requests the image with the given Range and If-Range headers, either of which may be null.
+     */
+    private MockHttpServletResponse get(String range, String ifRange) throws IOException {
+        var request = new MockHttpServletRequest("GET", "/api/images/cpu.png");
+        if (range != null)
+            request.addHeader(RANGE, range);
+        if (ifRange != null)
+            request.addHeader(IF_RANGE, ifRange);
+        var response = new MockHttpServletResponse();
+        imageController.getImage("cpu.png", null, null, null, null, request, response);
+        return response;
+    }
+
+    @Test
+    void servesWholeContentWithoutRange() throws IOException {
+        var response = get(null, null);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentLengthLong()).isEqualTo(10);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void servesSingleRange() throws IOException {
+        var response = get("bytes=2-5", null);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void servesSuffixRange() throws IOException {
+        var response = get("bytes=-3", null);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        assertThat(response.getContentAsString()).isEqualTo("789");
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws IOException {
+        var response = get("bytes=20-", null);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(CONTENT_RANGE)).isEqualTo("bytes */10");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void servesWholeContentWhenIfRangeDoesNotMatch() throws IOException {
+        var response = get("bytes=2-5", "\"other\"");
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(CONTENT_RANGE)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void servesRangeWhenIfRangeMatches() throws IOException {
+        var response = get("bytes=2-5", "\"abc\"");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void streamsWholeContentWhenLengthIsUnknown() throws IOException {
+        image.setContentLength(null);
+
+        var response = get("bytes=2-5", null);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(ACCEPT_RANGES)).isNull();
+        assertThat(response.getHeader(CONTENT_LENGTH)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+}
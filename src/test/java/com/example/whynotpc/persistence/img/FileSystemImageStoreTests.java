@@ -0,0 +1,144 @@
+package com.example.whynotpc.persistence.img;
+
+import com.example.whynotpc.persistence.img.ImageStore.StoredEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static com.example.whynotpc.utils.HashUtils.sha256Hex;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemImageStoreTests {
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    private Path root;
+
+    private FileSystemImageStore imageStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStore = new FileSystemImageStore(root);
+    }
+
+    /**
+     * Stores the given content.
+     */
+    private ImageStore.StoredBlob put(byte[] content) throws IOException {
+        return imageStore.put(new ByteArrayInputStream(content));
+    }
+
+    @Test
+    void storesContentUnderShardedDigestPath() throws IOException {
+        var blob = put(CONTENT);
+
+        var key = sha256Hex(CONTENT);
+        assertThat(blob.key()).isEqualTo(key);
+        assertThat(blob.size()).isEqualTo(CONTENT.length);
+        assertThat(root.resolve(key.substring(0, 2)).resolve(key)).hasBinaryContent(CONTENT);
+        assertThat(imageStore.file(key)).contains(root.resolve(key.substring(0, 2)).resolve(key));
+    }
+
+    @Test
+    void leavesNoTemporaryFiles() throws IOException {
+        put(CONTENT);
+        put(CONTENT);
+
+        try (var files = Files.list(root.resolve("tmp"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void leavesNoTemporaryFilesWhenReadingFails() {
+        var failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        assertThatThrownBy(() -> imageStore.put(failing)).isInstanceOf(IOException.class);
+        assertThat(root.resolve("tmp")).isEmptyDirectory();
+    }
+
+    @Test
+    void keepsSingleCopyAndRefreshesModificationTime() throws IOException {
+        var key = put(CONTENT).key();
+        var file = imageStore.file(key).orElseThrow();
+        var old = Instant.now().minus(1, ChronoUnit.DAYS);
+        Files.setLastModifiedTime(file, FileTime.from(old));
+
+        put(CONTENT);
+
+        try (var entries = imageStore.list()) {
+            assertThat(entries.map(StoredEntry::key)).containsExactly(key);
+        }
+        assertThat(Files.getLastModifiedTime(file).toInstant()).isAfter(old);
+    }
+
+    @Test
+    void transfersRanges() throws IOException {
+        var key = put(CONTENT).key();
+
+        var part = new ByteArrayOutputStream();
+        imageStore.transferTo(key, 2, 4, part);
+        var tail = new ByteArrayOutputStream();
+        imageStore.transferTo(key, 7, 100, tail);
+        var whole = new ByteArrayOutputStream();
+        imageStore.transferTo(key, whole);
+
+        assertThat(part.toString(StandardCharsets.US_ASCII)).isEqualTo("2345");
+        assertThat(tail.toString(StandardCharsets.US_ASCII)).isEqualTo("789");
+        assertThat(whole.toByteArray()).isEqualTo(CONTENT);
+        try (var in = imageStore.open(key)) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void listsOnlyContentFiles() throws IOException {
+        var key = put(CONTENT).key();
+        Files.writeString(root.resolve("README"), "not content");
+        Files.writeString(root.resolve(key.substring(0, 2)).resolve("notes.txt"), "not content");
+        Files.writeString(root.resolve("tmp").resolve("a".repeat(64)), "upload in progress");
+
+        try (var entries = imageStore.list()) {
+            assertThat(entries.map(StoredEntry::key)).containsExactly(key);
+        }
+    }
+
+    @Test
+    void rejectsKeysOutsideStore() {
+        assertThatThrownBy(() -> imageStore.open("../../etc/passwd")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> imageStore.open("g".repeat(64))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> imageStore.file(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deletesOnlyContentsUnmodifiedSinceCutoff() throws IOException {
+        var key = put(CONTENT).key();
+        var cutoff = Instant.now().minus(1, ChronoUnit.HOURS);
+
+        assertThat(imageStore.deleteIfUnmodifiedSince(key, cutoff)).isFalse();
+        assertThat(imageStore.file(key)).isPresent();
+
+        Files.setLastModifiedTime(imageStore.file(key).orElseThrow(), FileTime.from(cutoff.minusSeconds(60)));
+        assertThat(imageStore.deleteIfUnmodifiedSince(key, cutoff)).isTrue();
+        assertThat(imageStore.file(key)).isEmpty();
+        assertThat(imageStore.deleteIfUnmodifiedSince(key, cutoff)).isFalse();
+        assertThat(root.resolve("tmp")).isEmptyDirectory();
+    }
+}
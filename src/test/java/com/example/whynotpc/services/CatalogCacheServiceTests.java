@@ -0,0 +1,77 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.response.CategoryResponse;
+import com.example.whynotpc.services.CatalogCacheService.CatalogEntry;
+import com.example.whynotpc.services.CatalogCacheService.CatalogKey;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogCacheServiceTests {
+    private CatalogCacheService catalogCacheService;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        catalogCacheService = new CatalogCacheService(new ObjectMapper(), new SimpleMeterRegistry(), 100,
+                Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Loads a response filtered by the given category, counting the loads.
+     */
+    private CatalogEntry load(String category) {
+        loads.incrementAndGet();
+        return new CatalogEntry(category, CategoryResponse.ok(List.of()));
+    }
+
+    @Test
+    void keepsLoadedResponses() {
+        var key = CatalogKey.products(null, null, null, null);
+
+        var first = catalogCacheService.get(key, () -> load(null));
+        var second = catalogCacheService.get(key, () -> load(null));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void dropsLoadOverlappingInvalidation() {
+        var key = CatalogKey.products("GPU", null, null, null);
+
+        var served = catalogCacheService.get(key, () -> {
+            var entry = load("GPU");
+            catalogCacheService.invalidateCategories(List.of("GPU"));
+            return entry;
+        });
+        catalogCacheService.get(key, () -> load("GPU"));
+
+        assertThat(served.statusCode()).isEqualTo(200);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evictsOnlyInvalidatedCategoriesAndUnfilteredListings() {
+        var gpus = CatalogKey.products("GPU", null, null, null);
+        var cpus = CatalogKey.products("CPU", null, null, null);
+        var all = CatalogKey.products(null, null, null, null);
+        var categories = CatalogKey.categories();
+        for (var key : List.of(gpus, cpus, all, categories))
+            catalogCacheService.get(key, () -> load(key.category()));
+
+        catalogCacheService.invalidateCategories(List.of("GPU"));
+        for (var key : List.of(gpus, cpus, all, categories))
+            catalogCacheService.get(key, () -> load(key.category()));
+
+        assertThat(loads).hasValue(6);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.product.Category;
+import com.example.whynotpc.persistence.products.CategoryRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+
+class CategoryServiceTests {
+    private CategoryRepo categoryRepo;
+    private ProductSearchService productSearchService;
+    private ProductSuggestService productSuggestService;
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() {
+        categoryRepo = mock(CategoryRepo.class);
+        productSearchService = mock(ProductSearchService.class);
+        productSuggestService = mock(ProductSuggestService.class);
+        categoryService = new CategoryService(categoryRepo, mock(CatalogCacheService.class), productSearchService,
+                productSuggestService);
+    }
+
+    @Test
+    void rebuildsIndexesAfterDeletingCategoryProducts() {
+        var category = Category.builder().id(1L).name("SSD").build();
+        when(categoryRepo.findByName("SSD")).thenReturn(Optional.of(category));
+
+        categoryService.delete("SSD");
+
+        var order = inOrder(categoryRepo, productSearchService, productSuggestService);
+        order.verify(categoryRepo).delete(category);
+        order.verify(productSearchService).rebuild();
+        order.verify(productSuggestService).rebuild();
+    }
+
+    @Test
+    void rebuildsIndexesAfterDeletingAllCategories() {
+        categoryService.deleteAll();
+
+        var order = inOrder(categoryRepo, productSearchService, productSuggestService);
+        order.verify(categoryRepo).deleteAll();
+        order.verify(productSearchService).rebuild();
+        order.verify(productSuggestService).rebuild();
+    }
+}
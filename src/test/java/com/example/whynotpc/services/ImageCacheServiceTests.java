@@ -0,0 +1,115 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.img.Image;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageCacheServiceTests {
+    private SimpleMeterRegistry meterRegistry;
+    private ImageCacheService imageCacheService;
+    private AtomicInteger opens;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        imageCacheService = new ImageCacheService(meterRegistry, 100, Duration.ofMinutes(1), 100, 40, true);
+        opens = new AtomicInteger();
+    }
+
+    /**
+     * Builds an image whose content has the given hash and recorded length.
+     */
+    private static Image image(String contentHash, Long contentLength) {
+        return Image.builder().name(contentHash + ".bmp").contentHash(contentHash).contentLength(contentLength).build();
+    }
+
+    /**
+     * Opens a stream of as many bytes as the recorded length of the image, counting the opens.
+     */
+    private InputStream open(Image image) {
+        opens.incrementAndGet();
+        return new ByteArrayInputStream(new byte[(int) (long) image.getContentLength()]);
+    }
+
+    /**
+     * Reads the number of content bytes held by the cache, waiting for maintenance to reach the expected value.
+     */
+    private double residentBytes(double expected) throws InterruptedException {
+        var gauge = meterRegistry.get("images.cache.resident.bytes").gauge();
+        for (int i = 0; i < 100 && gauge.value() != expected; i++)
+            Thread.sleep(50);
+        return gauge.value();
+    }
+
+    @Test
+    void keepsContentInReadOnlyDirectBuffer() throws InterruptedException {
+        var image = image("a", 30L);
+
+        var first = imageCacheService.getContent(image, this::open);
+        var second = imageCacheService.getContent(image, this::open);
+
+        assertThat(opens).hasValue(1);
+        assertThat(first.isReadOnly()).isTrue();
+        assertThat(first.isDirect()).isTrue();
+        assertThat(first.remaining()).isEqualTo(30);
+        first.position(10);
+        assertThat(second.position()).isZero();
+        assertThat(residentBytes(30)).isEqualTo(30);
+    }
+
+    @Test
+    void keepsContentOnHeapWhenConfigured() {
+        imageCacheService = new ImageCacheService(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), 100, 40,
+                false);
+
+        var content = imageCacheService.getContent(image("a", 30L), this::open);
+
+        assertThat(content.isDirect()).isFalse();
+        assertThat(content.remaining()).isEqualTo(30);
+    }
+
+    @Test
+    void skipsContentTooLargeOrOfUnknownLength() {
+        assertThat(imageCacheService.getContent(image("a", 41L), this::open)).isNull();
+        assertThat(imageCacheService.getContent(image("b", null), this::open)).isNull();
+        assertThat(opens).hasValue(0);
+    }
+
+    @Test
+    void boundsTotalContentBytes() throws InterruptedException {
+        for (var contentHash : new String[]{"a", "b", "c", "d", "e"})
+            imageCacheService.getContent(image(contentHash, 40L), this::open);
+
+        assertThat(residentBytes(80)).isEqualTo(80);
+    }
+
+    @Test
+    void refusesContentLargerThanRecorded() throws InterruptedException {
+        var image = image("a", 10L);
+
+        assertThatThrownBy(() -> imageCacheService.getContent(image, ignored -> new ByteArrayInputStream(new byte[41])))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(residentBytes(0)).isZero();
+    }
+
+    @Test
+    void reloadsInvalidatedContent() {
+        var image = image("a", 30L);
+        imageCacheService.getContent(image, this::open);
+
+        imageCacheService.invalidateContent("a");
+        var content = imageCacheService.getContent(image, this::open);
+
+        assertThat(opens).hasValue(2);
+        assertThat(content.remaining()).isEqualTo(30);
+    }
+}
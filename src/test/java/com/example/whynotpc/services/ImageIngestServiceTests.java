@@ -0,0 +1,122 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.dto.ImageIngestDTO;
+import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.models.response.ImageIngestResponse;
+import com.example.whynotpc.persistence.img.ImageRepo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageIngestServiceTests {
+    private final AtomicLong ids = new AtomicLong();
+    private ImageService imageService;
+    private ImageRepo imageRepo;
+    private ImageIngestService imageIngestService;
+
+    @BeforeEach
+    void setUp() {
+        imageService = mock(ImageService.class);
+        imageRepo = mock(ImageRepo.class);
+        imageIngestService = new ImageIngestService(imageService, imageRepo, 2);
+        when(imageService.store(any())).thenAnswer(invocation -> {
+            var file = invocation.getArgument(0, MultipartFile.class);
+            return Image.builder().name(file.getOriginalFilename()).contentHash("hash-" + file.getSize()).build();
+        });
+        when(imageRepo.findExistingNames(anyList())).thenReturn(Set.of());
+        when(imageRepo.findExistingContentHashes(anyList())).thenReturn(Set.of());
+        when(imageRepo.saveAll(anyIterable())).thenAnswer(invocation -> {
+            var images = new ArrayList<Image>();
+            invocation.<Iterable<Image>>getArgument(0).forEach(images::add);
+            images.forEach(image -> image.setId(ids.incrementAndGet()));
+            return images;
+        });
+        when(imageRepo.save(any())).thenAnswer(invocation -> {
+            var image = invocation.getArgument(0, Image.class);
+            image.setId(ids.incrementAndGet());
+            return image;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageIngestService.shutdown();
+    }
+
+    /**
+     * Creates an uploaded file with the given name and size.
+     */
+    private static MultipartFile file(String name, int size) {
+        return new MockMultipartFile("files", name, "image/png", new byte[size]);
+    }
+
+    /**
+     * Reads the per-file results back from the response.
+     */
+    private static List<ImageIngestDTO> results(ImageIngestResponse response) {
+        var objectMapper = new ObjectMapper();
+        return objectMapper.convertValue(objectMapper.valueToTree(response).get("results"), new TypeReference<>() {
+        });
+    }
+
+    @Test
+    void insertsStoredImagesInOneBatch() {
+        var response = imageIngestService.ingest(new MultipartFile[]{file("a.png", 1), file("b.png", 1)});
+
+        assertThat(response.getStatusCode()).isEqualTo(201);
+        assertThat(results(response)).extracting(ImageIngestDTO::status, ImageIngestDTO::deduplicated)
+                .containsExactly(tuple("created", false), tuple("created", true));
+    }
+
+    @Test
+    void rejectsNamesTakenBeforeStoring() {
+        when(imageRepo.findExistingNames(anyList())).thenReturn(Set.of("a.png"));
+
+        var response = imageIngestService.ingest(new MultipartFile[]{
+                file("a.png", 1), file("b.png", 2), file("b.png", 3)});
+
+        assertThat(results(response)).extracting(ImageIngestDTO::status)
+                .containsExactly("conflict", "created", "conflict");
+    }
+
+    @Test
+    void keepsOtherImagesWhenBatchConflicts() {
+        doThrow(new DataIntegrityViolationException("duplicate name")).when(imageRepo).saveAll(anyIterable());
+        doAnswer(invocation -> {
+            var image = invocation.getArgument(0, Image.class);
+            assertThat(image.getId()).isNull();
+            if (image.getName().equals("b.png"))
+                throw new DataIntegrityViolationException("duplicate name");
+            image.setId(ids.incrementAndGet());
+            return image;
+        }).when(imageRepo).save(any());
+
+        var response = imageIngestService.ingest(new MultipartFile[]{
+                file("a.png", 1), file("b.png", 2), file("c.png", 3)});
+
+        assertThat(response.getStatusCode()).isEqualTo(201);
+        assertThat(results(response)).extracting(ImageIngestDTO::status)
+                .containsExactly("created", "conflict", "created");
+        assertThat(results(response).get(1).id()).isNull();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.persistence.img.FileSystemImageStore;
+import com.example.whynotpc.persistence.img.ImageRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ImageReaperServiceTests {
+    private static final byte[] CONTENT = "image content".getBytes();
+
+    @TempDir
+    private Path root;
+
+    private FileSystemImageStore imageStore;
+    private ImageRepo imageRepo;
+    private ImageVariantService imageVariantService;
+    private SimpleMeterRegistry meterRegistry;
+    private ImageReaperService imageReaperService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStore = new FileSystemImageStore(root);
+        imageRepo = mock(ImageRepo.class);
+        imageVariantService = mock(ImageVariantService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        imageReaperService = new ImageReaperService(imageStore, imageRepo, mock(ImageCacheService.class),
+                imageVariantService, meterRegistry, Duration.ofHours(1), 500);
+    }
+
+    @Test
+    void reapsUnreferencedContentOlderThanGracePeriod() throws IOException {
+        var key = storeOld();
+        when(imageRepo.findExistingContentHashes(anyCollection())).thenReturn(Set.of());
+
+        imageReaperService.reapUnreferencedImages();
+
+        assertThat(imageStore.file(key)).isEmpty();
+        verify(imageVariantService).deleteVariants(key);
+        assertThat(meterRegistry.counter("images.reaped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsReferencedContent() throws IOException {
+        var key = storeOld();
+        when(imageRepo.findExistingContentHashes(anyCollection())).thenReturn(Set.of(key));
+
+        imageReaperService.reapUnreferencedImages();
+
+        assertThat(imageStore.file(key)).isPresent();
+    }
+
+    @Test
+    void keepsContentStoredAgainAfterListing() throws IOException {
+        var key = storeOld();
+        // the upload stores the content again once it is listed, and saves its image after references are checked
+        when(imageRepo.findExistingContentHashes(anyCollection())).thenAnswer(invocation -> {
+            imageStore.put(new ByteArrayInputStream(CONTENT));
+            return Set.of();
+        });
+
+        imageReaperService.reapUnreferencedImages();
+
+        assertThat(imageStore.file(key)).isPresent();
+        assertThat(imageStore.open(key).readAllBytes()).isEqualTo(CONTENT);
+        verify(imageVariantService, never()).deleteVariants(key);
+        assertThat(meterRegistry.counter("images.reaped").count()).isZero();
+    }
+
+    /**
+     * Stores the content and backdates it past the grace period.
+     *
+     * @return key of the stored content
+     * @throws IOException If the content cannot be stored
+     */
+    private String storeOld() throws IOException {
+        var key = imageStore.put(new ByteArrayInputStream(CONTENT)).key();
+        var file = imageStore.file(key).orElseThrow();
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        return key;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.img.Image;
+import com.example.whynotpc.models.img.ImageVariant;
+import com.example.whynotpc.utils.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ImageVariantServiceTests {
+    @TempDir
+    private Path root;
+
+    private ImageService imageService;
+    private ImageVariantService imageVariantService;
+    private Image image;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageService = mock(ImageService.class);
+        imageVariantService = new ImageVariantService(imageService, new SimpleMeterRegistry(), List.of(64, 128),
+                root, 1024 * 1024, 1, 1);
+        image = Image.builder().name("cpu.png").type("image/png").contentHash("abc").build();
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(256, 128, BufferedImage.TYPE_INT_ARGB), "png", out);
+        content = out.toByteArray();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageVariantService.shutdown();
+    }
+
+    /**
+     * Makes opening the original image wait until the returned latch is released.
+     */
+    private CountDownLatch blockOpening() throws IOException {
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return new ByteArrayInputStream(content);
+        }).when(imageService).openImage(any());
+        return release;
+    }
+
+    @Test
+    void resolvesAllowedSizesAndFormats() {
+        assertThat(imageVariantService.getVariant(image, 64, null, null))
+                .isEqualTo(new ImageVariant("abc", 64, 0, "png"));
+        assertThat(imageVariantService.getVariant(image, null, 128, "JPG"))
+                .isEqualTo(new ImageVariant("abc", 0, 128, "jpeg"));
+        image.setType("image/jpeg");
+        assertThat(imageVariantService.getVariant(image, null, null, null).format()).isEqualTo("jpeg");
+    }
+
+    @Test
+    void rejectsSizesAndFormatsOutsideAllowList() {
+        assertThatThrownBy(() -> imageVariantService.getVariant(image, 100, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> imageVariantService.getVariant(image, null, 4096, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> imageVariantService.getVariant(image, 64, null, "gif"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void scalesDownToFitAndStoresVariant() throws IOException {
+        when(imageService.openImage(any())).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        var variant = imageVariantService.getVariant(image, 64, null, "png");
+
+        var data = imageVariantService.getContent(image, variant);
+
+        var scaled = ImageIO.read(new ByteArrayInputStream(data));
+        assertThat(scaled.getWidth()).isEqualTo(64);
+        assertThat(scaled.getHeight()).isEqualTo(32);
+        assertThat(root.resolve(variant.fileName())).hasBinaryContent(data);
+    }
+
+    @Test
+    void sharesConcurrentGenerationOfSameVariant() throws Exception {
+        var release = blockOpening();
+        var variant = imageVariantService.getVariant(image, 128, null, "png");
+
+        var first = CompletableFuture.supplyAsync(() -> imageVariantService.getContent(image, variant));
+        var second = CompletableFuture.supplyAsync(() -> imageVariantService.getContent(image, variant));
+        verify(imageService, timeout(5000)).openImage(any());
+        release.countDown();
+
+        assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(first.get(10, TimeUnit.SECONDS));
+        imageVariantService.getContent(image, variant);
+        verify(imageService, times(1)).openImage(any());
+    }
+
+    @Test
+    void rejectsGenerationWhenPoolIsSaturated() throws Exception {
+        var release = blockOpening();
+        var running = imageVariantService.getVariant(image, 64, null, "png");
+
+        var first = CompletableFuture.supplyAsync(() -> imageVariantService.getContent(image, running));
+        verify(imageService, timeout(5000)).openImage(any());
+        var outcomes = new ArrayList<CompletableFuture<byte[]>>();
+        for (var variant : List.of(imageVariantService.getVariant(image, 128, null, "png"),
+                imageVariantService.getVariant(image, 64, null, "jpeg")))
+            outcomes.add(CompletableFuture.supplyAsync(() -> imageVariantService.getContent(image, variant)));
+        var rejected = CompletableFuture.anyOf(outcomes.toArray(CompletableFuture[]::new));
+
+        assertThatThrownBy(() -> rejected.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(TooManyRequestsException.class);
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).isNotEmpty();
+        assertThat(outcomes).filteredOn(CompletableFuture::isCompletedExceptionally).hasSize(1);
+    }
+}
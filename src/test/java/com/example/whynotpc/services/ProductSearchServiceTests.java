@@ -0,0 +1,82 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.dto.ProductDTO;
+import com.example.whynotpc.persistence.products.ProductRepo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchServiceTests {
+    private final Map<Long, ProductDTO> products = Stream.of(
+            product(1, "Kingston A400 SSD"),
+            product(2, "Samsung 870 EVO SSD"),
+            product(3, "Crucial MX500 SSD")
+    ).collect(Collectors.toMap(ProductDTO::id, Function.identity()));
+
+    private ProductRepo productRepo;
+    private ProductSearchService productSearchService;
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepo.class);
+        productSearchService = new ProductSearchService(productRepo, new SimpleMeterRegistry(), 20, 100);
+        when(productRepo.findAllProjectedByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(products::get).toList());
+    }
+
+    /**
+     * Creates a product with the given id and title.
+     */
+    private static ProductDTO product(long id, String title) {
+        return new ProductDTO(id, title, BigDecimal.TEN, null, "SSD");
+    }
+
+    /**
+     * Searches products, returning the ids of the matches.
+     */
+    private List<Long> search(String query) {
+        var json = new ObjectMapper().valueToTree(productSearchService.search(query, null)).get("products");
+        return json.findValues("id").stream().map(JsonNode::asLong).toList();
+    }
+
+    @Test
+    void replaysWritesMadeWhileRebuilding() {
+        when(productRepo.streamAll()).thenAnswer(invocation -> {
+            // Committed after the products were read, but before the rebuilt index replaces the current one
+            productSearchService.index(products.get(3L));
+            productSearchService.remove(1L);
+            return Stream.of(products.get(1L), products.get(2L));
+        });
+
+        productSearchService.rebuild();
+
+        assertThat(search("ssd")).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void keepsCurrentIndexWhenRebuildFails() {
+        productSearchService.index(products.get(1L));
+        when(productRepo.streamAll()).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThatThrownBy(productSearchService::rebuild).isInstanceOf(IllegalStateException.class);
+        productSearchService.index(products.get(2L));
+
+        assertThat(search("ssd")).containsExactly(1L, 2L);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.dto.ProductDTO;
+import com.example.whynotpc.models.product.Category;
+import com.example.whynotpc.persistence.orders.OrderItemRepo;
+import com.example.whynotpc.persistence.products.CategoryRepo;
+import com.example.whynotpc.persistence.products.ProductRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static com.example.whynotpc.services.ProductService.decodeCursor;
+import static com.example.whynotpc.services.ProductService.encodeCursor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTests {
+    private static final ProductDTO PRODUCT = new ProductDTO(42L, "RTX 4090", new BigDecimal("1599.90"),
+            "rtx.png", "GPU");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductRepo productRepo;
+    private CategoryRepo categoryRepo;
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepo.class);
+        categoryRepo = mock(CategoryRepo.class);
+        productService = new ProductService(productRepo, categoryRepo, mock(OrderItemRepo.class),
+                mock(ImageService.class), mock(CatalogCacheService.class), mock(ProductSearchService.class),
+                mock(ProductSuggestService.class), objectMapper);
+    }
+
+    /**
+     * Exports the products of the given category and returns the written lines.
+     */
+    private String[] export(String categoryName) throws IOException {
+        var out = new ByteArrayOutputStream();
+        productService.export(categoryName, out);
+        var ndjson = out.toString(StandardCharsets.UTF_8);
+        assertThat(ndjson).endsWith("\n");
+        return ndjson.split("\n");
+    }
+
+    @Test
+    void roundTripsCursor() {
+        assertThat(decodeCursor(encodeCursor("price", false, PRODUCT), "price", false))
+                .containsExactly("42", "1599.90");
+        assertThat(decodeCursor(encodeCursor("title", true, PRODUCT), "title", true))
+                .containsExactly("42", "RTX 4090");
+        assertThat(decodeCursor(encodeCursor("id", false, PRODUCT), "id", false))
+                .containsExactly("42", "");
+    }
+
+    @Test
+    void roundTripsTitleWithNewline() {
+        var product = new ProductDTO(7L, "Case\nwith window", BigDecimal.TEN, null, "Case");
+
+        assertThat(decodeCursor(encodeCursor("title", false, product), "title", false))
+                .containsExactly("7", "Case\nwith window");
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSortOrder() {
+        var cursor = encodeCursor("price", false, PRODUCT);
+
+        assertThatThrownBy(() -> decodeCursor(cursor, "price", true)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decodeCursor(cursor, "title", false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> decodeCursor("not a cursor!", "id", false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decodeCursor("aWQ", "id", false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void exportsOneJsonObjectPerLine() throws IOException {
+        var closed = new AtomicBoolean();
+        var product = new ProductDTO(7L, "Case\nwith window", BigDecimal.TEN, null, "Case");
+        when(productRepo.streamAll()).thenReturn(Stream.of(PRODUCT, product).onClose(() -> closed.set(true)));
+
+        var lines = export(null);
+
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], ProductDTO.class)).isEqualTo(PRODUCT);
+        assertThat(objectMapper.readValue(lines[1], ProductDTO.class)).isEqualTo(product);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void exportsOnlyProductsOfCategory() throws IOException {
+        var category = Category.builder().name("GPU").build();
+        when(categoryRepo.findByName("GPU")).thenReturn(Optional.of(category));
+        when(productRepo.streamAllByCategory(category)).thenReturn(Stream.of(PRODUCT));
+
+        assertThat(export("GPU")).containsExactly(objectMapper.writeValueAsString(PRODUCT));
+    }
+
+    @Test
+    void exportsNothingForEmptyCatalog() throws IOException {
+        when(productRepo.streamAll()).thenReturn(Stream.empty());
+        var out = new ByteArrayOutputStream();
+
+        productService.export(null, out);
+
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void rejectsExportOfUnknownCategory() {
+        when(categoryRepo.findByName(any())).thenReturn(Optional.empty());
+        var out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> productService.export("Unknown", out)).isInstanceOf(EntityNotFoundException.class);
+        assertThat(out.size()).isZero();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.dto.ProductDTO;
+import com.example.whynotpc.models.dto.ProductPopularityDTO;
+import com.example.whynotpc.models.dto.SuggestionDTO;
+import com.example.whynotpc.models.order.OrderItem;
+import com.example.whynotpc.models.product.Category;
+import com.example.whynotpc.models.product.Product;
+import com.example.whynotpc.persistence.orders.OrderItemRepo;
+import com.example.whynotpc.persistence.products.CategoryRepo;
+import com.example.whynotpc.persistence.products.ProductRepo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.whynotpc.models.order.OrderStatus.COMPLETED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSuggestServiceTests {
+    private final Category ssd = Category.builder().id(1L).name("SSD").build();
+    private final Category storage = Category.builder().id(2L).name("Storage").build();
+    private final Product samsung = Product.builder().id(10L).title("Samsung 870 EVO").category(ssd).build();
+    private final Product kingston = Product.builder().id(11L).title("Kingston A400").category(ssd).build();
+
+    private ProductRepo productRepo;
+    private ProductSuggestService productSuggestService;
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepo.class);
+        var categoryRepo = mock(CategoryRepo.class);
+        var orderItemRepo = mock(OrderItemRepo.class);
+        when(orderItemRepo.sumQuantitiesByProduct(COMPLETED)).thenReturn(List.of(
+                new ProductPopularityDTO(10L, 5L), new ProductPopularityDTO(11L, 3L)));
+        when(productRepo.streamAll()).thenReturn(Stream.of(dto(samsung), dto(kingston)));
+        when(categoryRepo.findAll()).thenReturn(List.of(ssd, storage));
+        productSuggestService = new ProductSuggestService(productRepo, categoryRepo, orderItemRepo,
+                new SimpleMeterRegistry(), 10);
+        productSuggestService.rebuild();
+    }
+
+    @Test
+    void ranksSuggestionsByOrderedQuantity() {
+        assertThat(suggest("s")).containsExactly(
+                new SuggestionDTO("SSD", "category", 1L),
+                new SuggestionDTO("Samsung 870 EVO", "product", 10L),
+                new SuggestionDTO("Storage", "category", 2L));
+    }
+
+    @Test
+    void recordsCheckedOutQuantities() {
+        productSuggestService.record(List.of(OrderItem.builder().product(kingston).quantity(4).build()));
+
+        assertThat(suggest("k")).containsExactly(new SuggestionDTO("Kingston A400", "product", 11L));
+        assertThat(suggest("")).startsWith(
+                new SuggestionDTO("SSD", "category", 1L),
+                new SuggestionDTO("Kingston A400", "product", 11L));
+    }
+
+    @Test
+    void movesPopularityWithProductCategory() {
+        samsung.setCategory(storage);
+        productSuggestService.index(samsung, ssd);
+
+        // Storage now holds 5, SSD the remaining 3 of Kingston
+        assertThat(suggest("s")).containsExactly(
+                new SuggestionDTO("Samsung 870 EVO", "product", 10L),
+                new SuggestionDTO("Storage", "category", 2L),
+                new SuggestionDTO("SSD", "category", 1L));
+    }
+
+    @Test
+    void removesPopularityOfDeletedProduct() {
+        productSuggestService.remove(samsung);
+
+        assertThat(suggest("s")).containsExactly(
+                new SuggestionDTO("SSD", "category", 1L),
+                new SuggestionDTO("Storage", "category", 2L));
+        assertThat(suggest("sa")).isEmpty();
+    }
+
+    @Test
+    void replaysWritesMadeWhileRebuilding() {
+        doAnswer(invocation -> {
+            // Committed after the order totals were read, but before the rebuilt trie replaces the current one
+            productSuggestService.record(List.of(OrderItem.builder().product(kingston).quantity(4).build()));
+            productSuggestService.remove(samsung);
+            return Stream.of(dto(samsung), dto(kingston));
+        }).when(productRepo).streamAll();
+
+        productSuggestService.rebuild();
+
+        // Kingston now holds 3 + 4, and so does SSD without Samsung's 5
+        assertThat(suggest("")).containsExactly(
+                new SuggestionDTO("Kingston A400", "product", 11L),
+                new SuggestionDTO("SSD", "category", 1L),
+                new SuggestionDTO("Storage", "category", 2L));
+    }
+
+    @Test
+    void keepsCurrentTrieWhenRebuildFails() {
+        doThrow(new IllegalStateException("connection lost")).when(productRepo).streamAll();
+
+        assertThatThrownBy(productSuggestService::rebuild).isInstanceOf(IllegalStateException.class);
+        productSuggestService.remove(kingston);
+
+        assertThat(suggest("s")).containsExactly(
+                new SuggestionDTO("SSD", "category", 1L),
+                new SuggestionDTO("Samsung 870 EVO", "product", 10L),
+                new SuggestionDTO("Storage", "category", 2L));
+        assertThat(suggest("k")).isEmpty();
+    }
+
+    /**
+     * Suggests for the prefix and reads the suggestions back from the serialized response.
+     *
+     * @param prefix The prefix typed so far
+     * @return suggestions, most popular first
+     */
+    private List<SuggestionDTO> suggest(String prefix) {
+        var objectMapper = new ObjectMapper();
+        var json = objectMapper.valueToTree(productSuggestService.suggest(prefix)).get("suggestions");
+        return objectMapper.convertValue(json, new TypeReference<>() {
+        });
+    }
+
+    /**
+     * Projects the product the way the product repository streams it.
+     *
+     * @param product The product
+     * @return DTO of the product
+     */
+    private static ProductDTO dto(Product product) {
+        return new ProductDTO(product.getId(), product.getTitle(), BigDecimal.ONE, null,
+                product.getCategory().getName());
+    }
+}
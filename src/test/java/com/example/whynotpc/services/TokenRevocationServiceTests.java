@@ -0,0 +1,142 @@
+package com.example.whynotpc.services;
+
+import com.example.whynotpc.models.jwt.AccessToken;
+import com.example.whynotpc.models.jwt.TokenClaims;
+import com.example.whynotpc.persistence.jwt.AccessTokenRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.UUID;
+
+import static com.example.whynotpc.models.jwt.TokenClaims.ACCESS_TYPE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationServiceTests {
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+    private MutableClock clock;
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        tokenRevocationService = new TokenRevocationService(mock(JwtService.class), mock(AccessTokenRepo.class),
+                new SimpleMeterRegistry(), 1000, EXPIRE_AFTER_WRITE, 100, clock);
+    }
+
+    @Test
+    void forgetsKnownValidTokenAfterExpireAfterWrite() {
+        var claims = claims(Duration.ofHours(1));
+        tokenRevocationService.remember(claims);
+
+        clock.advance(EXPIRE_AFTER_WRITE.minusSeconds(1));
+        assertThat(tokenRevocationService.isKnownValid(claims)).isTrue();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(tokenRevocationService.isKnownValid(claims)).isFalse();
+    }
+
+    @Test
+    void forgetsKnownValidTokenWhenItExpiresFirst() {
+        var claims = claims(Duration.ofMinutes(1));
+        tokenRevocationService.remember(claims);
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(tokenRevocationService.isKnownValid(claims)).isTrue();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(tokenRevocationService.isKnownValid(claims)).isFalse();
+    }
+
+    @Test
+    void revokingForgetsKnownValidToken() {
+        var claims = claims(Duration.ofHours(1));
+        tokenRevocationService.remember(claims);
+
+        tokenRevocationService.revoke(accessToken(claims.id(), Duration.ofHours(1)));
+
+        assertThat(tokenRevocationService.isKnownValid(claims)).isFalse();
+        assertThat(tokenRevocationService.isRevoked(claims.id())).isTrue();
+    }
+
+    @Test
+    void keepsUnexpiredRevocationsWhenRebuildingFilter() {
+        var expiring = UUID.randomUUID().toString();
+        var lasting = UUID.randomUUID().toString();
+        tokenRevocationService.revoke(accessToken(expiring, Duration.ofSeconds(30)));
+        tokenRevocationService.revoke(accessToken(lasting, Duration.ofHours(1)));
+
+        clock.advance(Duration.ofMinutes(2));
+        var later = UUID.randomUUID().toString();
+        tokenRevocationService.revoke(accessToken(later, Duration.ofHours(1)));
+
+        assertThat(tokenRevocationService.isRevoked(expiring)).isFalse();
+        assertThat(tokenRevocationService.isRevoked(lasting)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(later)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(UUID.randomUUID().toString())).isFalse();
+    }
+
+    /**
+     * Builds the claims of a self-contained access token issued now.
+     *
+     * @param lifetime The time until the token expires
+     * @return claims of the token
+     */
+    private TokenClaims claims(Duration lifetime) {
+        var now = clock.instant();
+        return new TokenClaims(UUID.randomUUID().toString(), "user", ACCESS_TYPE, 1L, "USER",
+                Date.from(now), Date.from(now.plus(lifetime)));
+    }
+
+    /**
+     * Builds a stored access token expiring after the given time.
+     *
+     * @param tokenId  The id of the token
+     * @param lifetime The time until the token expires
+     * @return access token
+     */
+    private AccessToken accessToken(String tokenId, Duration lifetime) {
+        return AccessToken.builder()
+                .tokenId(tokenId)
+                .expiresAt(LocalDateTime.ofInstant(clock.instant().plus(lifetime), ZoneId.systemDefault()))
+                .build();
+    }
+
+    /**
+     * Clock standing still until advanced.
+     */
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.whynotpc.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+    private static final int INSERTIONS = 100_000;
+
+    @Test
+    void neverReportsFalseNegatives() {
+        var filter = new BloomFilter(INSERTIONS, 0.01);
+        var values = new ArrayList<String>(INSERTIONS);
+        for (int i = 0; i < INSERTIONS; i++) {
+            var value = UUID.randomUUID().toString();
+            values.add(value);
+            filter.put(value);
+        }
+
+        assertThat(values).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearTarget() {
+        var filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++)
+            filter.put(UUID.randomUUID().toString());
+
+        int falsePositives = 0;
+        for (int i = 0; i < INSERTIONS; i++)
+            if (filter.mightContain(UUID.randomUUID().toString()))
+                falsePositives++;
+
+        assertThat((double) falsePositives / INSERTIONS).isLessThan(0.02);
+    }
+
+    @Test
+    void reportsNothingWhenEmpty() {
+        var filter = new BloomFilter(INSERTIONS, 0.01);
+
+        assertThat(filter.mightContain("")).isFalse();
+        assertThat(filter.mightContain(UUID.randomUUID().toString())).isFalse();
+    }
+}
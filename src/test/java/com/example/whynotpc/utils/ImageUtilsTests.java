@@ -0,0 +1,103 @@
+package com.example.whynotpc.utils;
+
+import com.example.whynotpc.models.img.ImageCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+import static com.example.whynotpc.utils.ImageUtils.detectCodec;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageUtilsTests {
+    /**
+     * Builds a header from the given leading bytes.
+     */
+    private static byte[] header(int... bytes) {
+        var header = new byte[ImageUtils.HEADER_LENGTH];
+        for (int i = 0; i < bytes.length; i++)
+            header[i] = (byte) bytes[i];
+        return header;
+    }
+
+    @Test
+    void deflatesUncompressedBitmaps() {
+        assertThat(detectCodec(header('B', 'M'), "image/bmp")).isEqualTo(ImageCodec.DEFLATE);
+        assertThat(detectCodec(header('I', 'I', 42, 0), "image/tiff")).isEqualTo(ImageCodec.DEFLATE);
+        assertThat(detectCodec(header('M', 'M', 0, 42), null)).isEqualTo(ImageCodec.DEFLATE);
+        assertThat(detectCodec(header(0, 0, 1, 0), "image/x-icon")).isEqualTo(ImageCodec.DEFLATE);
+    }
+
+    @Test
+    void deflatesSvgByTypeOrContent() {
+        var svg = "  <svg xmlns=\"http://www.w3.org/2000/svg\">".getBytes(StandardCharsets.US_ASCII);
+        var xml = "<?xml version=\"1.0\"?>".getBytes(StandardCharsets.US_ASCII);
+
+        assertThat(detectCodec(header(), "image/SVG+xml")).isEqualTo(ImageCodec.DEFLATE);
+        assertThat(detectCodec(svg, "application/octet-stream")).isEqualTo(ImageCodec.DEFLATE);
+        assertThat(detectCodec(xml, null)).isEqualTo(ImageCodec.DEFLATE);
+    }
+
+    @Test
+    void storesCompressedFormatsRaw() {
+        assertThat(detectCodec(header(0x89, 'P', 'N', 'G'), "image/png")).isEqualTo(ImageCodec.RAW);
+        assertThat(detectCodec(header(0xFF, 0xD8, 0xFF), "image/jpeg")).isEqualTo(ImageCodec.RAW);
+        assertThat(detectCodec(header('R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'), "image/webp"))
+                .isEqualTo(ImageCodec.RAW);
+        assertThat(detectCodec(header('G', 'I', 'F', '8', '9', 'a'), "image/gif")).isEqualTo(ImageCodec.RAW);
+    }
+
+    @Test
+    void storesShortOrEmptyContentRaw() {
+        assertThat(detectCodec(new byte[0], null)).isEqualTo(ImageCodec.RAW);
+        assertThat(detectCodec(new byte[]{'B'}, null)).isEqualTo(ImageCodec.RAW);
+    }
+
+    @Test
+    void decodesStreamedDeflateContent() throws IOException {
+        var content = new byte[64 * 1024];
+        new Random(42).nextBytes(content);
+        for (int i = 0; i < content.length; i += 2)
+            content[i] = 0;
+        var deflater = new Deflater(6);
+        byte[] stored;
+        try (var in = new DeflaterInputStream(new ByteArrayInputStream(content), deflater)) {
+            stored = in.readAllBytes();
+        } finally {
+            deflater.end();
+        }
+
+        assertThat(stored.length).isLessThan(content.length);
+        try (var in = ImageUtils.decode(new ByteArrayInputStream(stored), ImageCodec.DEFLATE)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void passesRawContentThrough() throws IOException {
+        var content = "raw bytes".getBytes(StandardCharsets.US_ASCII);
+
+        try (var in = ImageUtils.decode(new ByteArrayInputStream(content), ImageCodec.RAW)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        try (var in = ImageUtils.decode(new ByteArrayInputStream(content), null)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void decodesLegacyCompressedContent() throws Exception {
+        var content = "legacy ".repeat(1000).getBytes(StandardCharsets.US_ASCII);
+
+        var compressed = ImageUtils.compressImage(content);
+
+        assertThat(ImageUtils.decompressImage(compressed)).isEqualTo(content);
+        try (var in = ImageUtils.decode(new ByteArrayInputStream(compressed), ImageCodec.DEFLATE)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+}
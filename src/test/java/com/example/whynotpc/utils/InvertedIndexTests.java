@@ -0,0 +1,101 @@
+package com.example.whynotpc.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTests {
+    private final InvertedIndex index = new InvertedIndex();
+
+    @Test
+    void tokenizesIntoLowercaseWords() {
+        assertThat(InvertedIndex.tokenize("Kingston A400  SSD, 480GB", false))
+                .containsExactly("kingston", "a400", "ssd", "480gb");
+        assertThat(InvertedIndex.tokenize(null, false)).isEmpty();
+    }
+
+    @Test
+    void tokenizesCompoundsAsSingleWords() {
+        assertThat(InvertedIndex.tokenize("SA400S37/480G", true)).containsExactly("sa400s37", "480g", "sa400s37480g");
+        assertThat(InvertedIndex.tokenize("SA400S37/480G", false)).containsExactly("sa400s37", "480g");
+    }
+
+    @Test
+    void matchesLastWordAsPrefixOnly() {
+        index.put(1, "Kingston A400 SSD 480GB");
+        index.put(2, "Samsung 870 EVO SSD 500GB");
+
+        assertThat(index.search("kingston 48", 10)).containsExactly(1L);
+        assertThat(index.search("ssd sam", 10)).containsExactly(2L);
+        assertThat(index.search("king ssd", 10)).isEmpty();
+    }
+
+    @Test
+    void matchesPartNumbers() {
+        index.put(1, "Kingston A400 SSD 480GB SA400S37/480G");
+
+        assertThat(index.search("SA400S37/480G", 10)).containsExactly(1L);
+        assertThat(index.search("sa400s37480g", 10)).containsExactly(1L);
+        assertThat(index.search("sa400", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void expandsPrefixToEveryTerm() {
+        for (int i = 0; i < 200; i++)
+            index.put(i, "Fan f" + i);
+
+        assertThat(index.search("f1", 1000)).hasSize(111);
+        assertThat(index.search("fan f", 1000)).hasSize(200);
+    }
+
+    @Test
+    void ranksExactMatchesThenShorterTextsThenEarlierOnes() {
+        index.put(1, "Ryzen 7 7800X3D processor box");
+        index.put(2, "Ryzen 5 7600 processor");
+        index.put(3, "Ryzen 5 7600X processor");
+        index.put(4, "Ryzen 7 processors");
+
+        assertThat(index.search("ryzen processor", 10)).containsExactly(2L, 3L, 1L, 4L);
+        assertThat(index.search("ryzen processor", 2)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void replacesAndRemovesTexts() {
+        index.put(1, "Corsair RM750 PSU");
+        index.put(1, "Corsair RM850 PSU");
+        index.put(2, "Seasonic Focus PSU");
+        index.remove(2);
+
+        assertThat(index.search("rm750", 10)).isEmpty();
+        assertThat(index.search("rm850", 10)).containsExactly(1L);
+        assertThat(index.search("psu", 10)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsMatchesAcrossCompaction() {
+        for (int i = 0; i < 3000; i++)
+            index.put(i, "Case model" + i);
+        for (int i = 0; i < 3000; i += 3) {
+            index.remove(i);
+            index.remove(i + 1);
+        }
+        index.put(1, "Case model1 revision");
+
+        assertThat(index.size()).isEqualTo(1001);
+        assertThat(index.search("case", 2000)).hasSize(1001);
+        assertThat(index.search("model2999", 10)).containsExactly(2999L);
+        assertThat(index.search("model1 revision", 10)).containsExactly(1L);
+        assertThat(index.search("model0", 10)).isEmpty();
+    }
+
+    @Test
+    void clearsAllTexts() {
+        index.put(1, "Noctua NH-D15");
+        index.clear();
+        index.put(2, "Noctua NH-U12S");
+
+        assertThat(index.search("noctua", 10)).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
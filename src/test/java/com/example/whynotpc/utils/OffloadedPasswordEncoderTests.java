@@ -0,0 +1,45 @@
+package com.example.whynotpc.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffloadedPasswordEncoderTests {
+    private final OffloadedPasswordEncoder passwordEncoder = new OffloadedPasswordEncoder(11, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    void upgradesOnlyWeakerHashes() {
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(10).encode("secret"))).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(11).encode("secret"))).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(12).encode("secret"))).isFalse();
+    }
+
+    @Test
+    void doesNotUpgradeOtherEncodings() {
+        assertThat(passwordEncoder.upgradeEncoding(null)).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding("")).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding("{noop}secret")).isFalse();
+    }
+
+    @Test
+    void matchesEncodedPasswords() {
+        var encoded = passwordEncoder.encode("secret");
+
+        assertThat(passwordEncoder.matches("secret", encoded)).isTrue();
+        assertThat(passwordEncoder.matches("other", encoded)).isFalse();
+    }
+
+    @Test
+    void calibratesToDefaultStrengthWithinNoBudget() {
+        assertThat(OffloadedPasswordEncoder.calibrateStrength(Duration.ZERO)).isEqualTo(10);
+    }
+}
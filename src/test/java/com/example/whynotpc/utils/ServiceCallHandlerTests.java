@@ -0,0 +1,101 @@
+package com.example.whynotpc.utils;
+
+import com.example.whynotpc.controllers.CategoryController;
+import com.example.whynotpc.models.response.EncodedResponse;
+import com.example.whynotpc.services.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.example.whynotpc.utils.ServiceCallHandler.getEncodedResponse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ServiceCallHandlerTests {
+    private static final EncodedResponse RESPONSE = EncodedResponse.of(200,
+            "{\"categories\":[%s]}".formatted("\"GPU\",".repeat(50) + "\"CPU\"").getBytes(StandardCharsets.UTF_8));
+
+    /**
+     * Negotiates the encoding of the response with the given Accept-Encoding header.
+     */
+    private static ResponseEntity<byte[]> negotiate(String acceptEncoding) {
+        return getEncodedResponse(() -> RESPONSE, acceptEncoding);
+    }
+
+    /**
+     * Asserts that the response was sent gzip-compressed.
+     */
+    private static void assertGzipped(ResponseEntity<byte[]> response) {
+        assertThat(response.getHeaders().getFirst(CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getBody()).isEqualTo(RESPONSE.gzip());
+        assertThat(response.getHeaders().getETag()).isEqualTo(RESPONSE.etag(true));
+    }
+
+    /**
+     * Asserts that the response was sent as plain JSON.
+     */
+    private static void assertIdentity(ResponseEntity<byte[]> response) {
+        assertThat(response.getHeaders().containsKey(CONTENT_ENCODING)).isFalse();
+        assertThat(response.getBody()).isEqualTo(RESPONSE.json());
+        assertThat(response.getHeaders().getETag()).isEqualTo(RESPONSE.etag(false));
+    }
+
+    @Test
+    void sendsGzipWhenAccepted() {
+        assertGzipped(negotiate("gzip, deflate, br"));
+        assertGzipped(negotiate("br;q=1.0, GZIP;q=0.5"));
+        assertGzipped(negotiate("*"));
+        assertGzipped(negotiate("gzip;q=0.001"));
+    }
+
+    @Test
+    void sendsIdentityWhenGzipNotAccepted() {
+        assertIdentity(negotiate(null));
+        assertIdentity(negotiate("deflate, br"));
+        assertIdentity(negotiate("gzip;q=0"));
+        assertIdentity(negotiate("gzip; q=0.000, br"));
+        assertIdentity(negotiate("*;q=0"));
+    }
+
+    @Test
+    void sendsIdentityWhenGzipIsNotSmaller() {
+        var tiny = EncodedResponse.of(200, "{}".getBytes(StandardCharsets.UTF_8));
+
+        var response = getEncodedResponse(() -> tiny, "gzip");
+
+        assertThat(response.getHeaders().containsKey(CONTENT_ENCODING)).isFalse();
+        assertThat(response.getBody()).isEqualTo(tiny.json());
+    }
+
+    @Test
+    void marksResponseRevalidatedAndVaryingByEncoding() {
+        var response = negotiate("gzip");
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(response.getHeaders().getVary()).containsExactly(ACCEPT_ENCODING);
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() throws Exception {
+        var categoryService = mock(CategoryService.class);
+        when(categoryService.readAll()).thenReturn(RESPONSE);
+        var mockMvc = MockMvcBuilders.standaloneSetup(new CategoryController(categoryService)).build();
+
+        mockMvc.perform(get("/api/categories").header(ACCEPT_ENCODING, "gzip")
+                        .header(IF_NONE_MATCH, RESPONSE.etag(true)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, RESPONSE.etag(true)))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/categories").header(IF_NONE_MATCH, RESPONSE.etag(true)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, RESPONSE.etag(false)))
+                .andExpect(content().bytes(RESPONSE.json()));
+    }
+}